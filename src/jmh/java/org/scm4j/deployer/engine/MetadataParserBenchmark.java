@@ -0,0 +1,61 @@
+package org.scm4j.deployer.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MetadataParserBenchmark {
+
+	@Param({"100", "5000", "50000"})
+	public int versions;
+	private byte[] metadata;
+
+	@Setup
+	public void setUp() {
+		StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<metadata>\n")
+				.append("  <groupId>eu.untill</groupId>\n  <artifactId>unTill</artifactId>\n")
+				.append("  <versioning>\n    <versions>\n");
+		for (int i = 0; i < versions; i++)
+			sb.append("      <version>1.").append(i).append("</version>\n");
+		sb.append("    </versions>\n    <snapshotVersions>\n");
+		for (int i = 0; i < versions; i++) {
+			String value = "2." + i + "-20180101.101010-" + i;
+			for (String extension : new String[] {"jar", "pom"})
+				sb.append("      <snapshotVersion>\n        <extension>").append(extension)
+						.append("</extension>\n        <value>").append(value)
+						.append("</value>\n        <updated>20180101101010</updated>\n      </snapshotVersion>\n");
+		}
+		sb.append("    </snapshotVersions>\n  </versioning>\n</metadata>\n");
+		metadata = sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public List<String> model() throws IOException {
+		return ArtifactoryReader.parseMetadataVersions(new ByteArrayInputStream(metadata));
+	}
+
+	@Benchmark
+	public List<String> streaming() {
+		return ArtifactoryReader.parseVersions(new ByteArrayInputStream(metadata));
+	}
+}
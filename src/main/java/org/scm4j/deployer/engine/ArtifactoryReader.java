@@ -1,34 +1,92 @@
 package org.scm4j.deployer.engine;
 
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
 import lombok.Cleanup;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.SneakyThrows;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
 import org.apache.maven.artifact.repository.metadata.Metadata;
 import org.apache.maven.artifact.repository.metadata.SnapshotVersion;
 import org.apache.maven.artifact.repository.metadata.Versioning;
 import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Type;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 @Data
+@EqualsAndHashCode(exclude = {"negativeCache", "metadataCache", "versionsCache", "repositoryStats", "executor"})
 public class ArtifactoryReader {
 
 	static final String METADATA_FILE_NAME = "maven-metadata.xml";
 	static final String LOCAL_METADATA_FILE_NAME = "maven-metadata-local.xml";
+	static final int CONNECT_TIMEOUT_MILLIS = 10000;
+	static final int READ_TIMEOUT_MILLIS = 30000;
+	static final long DEFAULT_ASYNC_TIMEOUT_MILLIS = 60000;
+	private static final int MAX_CONNECTIONS = 20;
+	private static final ExecutorService DEFAULT_EXECUTOR = AsyncTasks.newExecutor("scm4j-reader-%d", MAX_CONNECTIONS);
+	private static final int MAX_CONNECTIONS_PER_ROUTE = 4;
+	private static final XMLInputFactory XML_INPUT_FACTORY = newXmlInputFactory();
+	private static final Type VERSIONS_MANIFEST_TYPE = new TypeToken<Map<String, Map<String, Boolean>>>() {
+	}.getType();
+	private static final CloseableHttpClient HTTP_CLIENT = HttpClients.custom()
+			.setConnectionManager(newConnectionManager())
+			.setDefaultRequestConfig(RequestConfig.custom()
+					.setConnectTimeout(CONNECT_TIMEOUT_MILLIS)
+					.setConnectionRequestTimeout(CONNECT_TIMEOUT_MILLIS)
+					.setSocketTimeout(READ_TIMEOUT_MILLIS)
+					.build())
+			.build();
 
 	private final URL url;
 	private final String password;
 	private final String userName;
+	private boolean streamingMetadata = true;
+	private NegativeCache negativeCache;
+	private MetadataCache metadataCache;
+	private VersionsCache versionsCache;
+	private RepositoryStats repositoryStats;
+	private ExecutorService executor = DEFAULT_EXECUTOR;
+	private long asyncTimeoutMillis = DEFAULT_ASYNC_TIMEOUT_MILLIS;
 
 	@SneakyThrows
 	private ArtifactoryReader(String url, String userName, String password) {
@@ -37,6 +95,25 @@ public class ArtifactoryReader {
 		this.url = new URL(StringUtils.appendIfMissing(url, "/"));
 	}
 
+	private static XMLInputFactory newXmlInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+
+	private static PoolingHttpClientConnectionManager newConnectionManager() {
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(MAX_CONNECTIONS);
+		connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+		return connectionManager;
+	}
+
+	private static String getHeader(CloseableHttpResponse response, String name) {
+		Header header = response.getFirstHeader(name);
+		return header == null ? null : header.getValue();
+	}
+
 	@SneakyThrows
 	static ArtifactoryReader getByUrl(String repoUrl) {
 		URL url = new URL(repoUrl);
@@ -50,34 +127,107 @@ public class ArtifactoryReader {
 	}
 
 	List<String> getProductVersions(String groupIdAndArtifactId) throws IOException {
-		MetadataXpp3Reader reader = new MetadataXpp3Reader();
-		URL url = getProductMetaDataURL(groupIdAndArtifactId, METADATA_FILE_NAME);
-		try {
-			return readVersions(url, reader);
-		} catch (FileNotFoundException e) {
-			url = getProductMetaDataURL(groupIdAndArtifactId, LOCAL_METADATA_FILE_NAME);
+		return getProductMetadata(groupIdAndArtifactId).getVersions();
+	}
+
+	ProductMetadata getProductMetadata(String groupIdAndArtifactId) throws IOException {
+		ProductMetadata metadata = versionsCache == null ? null : versionsCache.get(toString(), groupIdAndArtifactId);
+		if (metadata == null) {
+			metadata = readProductMetadata(groupIdAndArtifactId);
+			if (versionsCache != null)
+				versionsCache.put(toString(), groupIdAndArtifactId, metadata);
+		}
+		return metadata;
+	}
+
+	CompletableFuture<List<String>> getProductVersionsAsync(String groupIdAndArtifactId) {
+		return AsyncTasks.submit(executor, () -> getProductVersions(groupIdAndArtifactId), asyncTimeoutMillis);
+	}
+
+	CompletableFuture<ProductMetadata> getProductMetadataAsync(String groupIdAndArtifactId) {
+		return AsyncTasks.submit(executor, () -> getProductMetadata(groupIdAndArtifactId), asyncTimeoutMillis);
+	}
+
+	void invalidateMissingMetadata(String groupIdAndArtifactId) {
+		if (negativeCache == null)
+			return;
+		for (String metadataName : Arrays.asList(METADATA_FILE_NAME, LOCAL_METADATA_FILE_NAME))
+			negativeCache.invalidate(getProductMetaDataURL(groupIdAndArtifactId, metadataName).toString());
+	}
+
+	private ProductMetadata readProductMetadata(String groupIdAndArtifactId) throws IOException {
+		for (String metadataName : Arrays.asList(METADATA_FILE_NAME, LOCAL_METADATA_FILE_NAME)) {
+			URL url = getProductMetaDataURL(groupIdAndArtifactId, metadataName);
+			if (negativeCache != null && negativeCache.isMissing(url.toString()))
+				continue;
 			try {
-				return readVersions(url, reader);
-			} catch (FileNotFoundException e1) {
-				return Collections.emptyList();
+				return readMetadata(url);
+			} catch (FileNotFoundException e) {
+				if (negativeCache != null && !(e instanceof UnauthorizedException))
+					negativeCache.putMissing(url.toString());
 			}
 		}
+		return ProductMetadata.EMPTY;
 	}
 
-	private List<String> readVersions(URL url, MetadataXpp3Reader reader) throws IOException {
+	private ProductMetadata readMetadata(URL url) throws IOException {
 		try (InputStream is = getContentStream(url)) {
+			return streamingMetadata ? parseMetadata(is) : parseMetadataModel(is);
+		}
+	}
+
+	static List<String> parseMetadataVersions(InputStream is) throws IOException {
+		return parseMetadataModel(is).getVersions();
+	}
+
+	private static ProductMetadata parseMetadataModel(InputStream is) throws IOException {
+		try {
+			Metadata meta = new MetadataXpp3Reader().read(is);
+			Versioning vers = meta.getVersioning();
+			List<String> versions = vers.getVersions();
+			versions.addAll(vers.getSnapshotVersions().stream()
+					.map(SnapshotVersion::getVersion)
+					.collect(Collectors.toList()));
+			return new ProductMetadata(versions, vers.getLastUpdated());
+		} catch (XmlPullParserException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	static List<String> parseVersions(InputStream is) {
+		return parseMetadata(is).getVersions();
+	}
+
+	private static ProductMetadata parseMetadata(InputStream is) {
+		Set<String> versions = new LinkedHashSet<>();
+		String lastUpdated = null;
+		try {
+			XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(is);
 			try {
-				Metadata meta = reader.read(is);
-				Versioning vers = meta.getVersioning();
-				List<String> versions = vers.getVersions();
-				versions.addAll(vers.getSnapshotVersions().stream()
-						.map(SnapshotVersion::getVersion)
-						.collect(Collectors.toList()));
-				return versions;
-			} catch (XmlPullParserException e) {
-				throw new RuntimeException(e);
+				Deque<String> path = new ArrayDeque<>();
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						String name = reader.getLocalName();
+						String parent = path.peek();
+						if ((name.equals("version") && "versions".equals(parent))
+								|| (name.equals("value") && "snapshotVersion".equals(parent)))
+							versions.add(reader.getElementText().trim());
+						else if (name.equals("lastUpdated") && "versioning".equals(parent))
+							lastUpdated = reader.getElementText().trim();
+						else
+							path.push(name);
+					} else if (event == XMLStreamConstants.END_ELEMENT) {
+						path.pop();
+					}
+				}
+			} finally {
+				reader.close();
 			}
+		} catch (XMLStreamException e) {
+			throw new RuntimeException(e);
 		}
+		return new ProductMetadata(new ArrayList<>(versions), lastUpdated);
 	}
 
 	String getProductListReleaseVersion() throws IOException {
@@ -94,19 +244,106 @@ public class ArtifactoryReader {
 		}
 	}
 
+	Map<String, Map<String, Boolean>> getProductsVersionsManifest(String productListReleaseVersion) throws IOException {
+		URL manifestUrl = new URL(url, Utils.coordsToRelativeFilePath(ProductList.PRODUCT_LIST_GROUP_ID,
+				ProductList.VERSIONS_MANIFEST_ARTIFACT_ID, productListReleaseVersion,
+				ProductList.VERSIONS_MANIFEST_EXTENSION, null).replace('\\', '/'));
+		if (negativeCache != null && negativeCache.isMissing(manifestUrl.toString()))
+			return null;
+		try (InputStream is = getContentStream(manifestUrl);
+		     Reader reader = new InputStreamReader(new GZIPInputStream(is), StandardCharsets.UTF_8)) {
+			return new Gson().fromJson(reader, VERSIONS_MANIFEST_TYPE);
+		} catch (FileNotFoundException e) {
+			if (negativeCache != null && !(e instanceof UnauthorizedException))
+				negativeCache.putMissing(manifestUrl.toString());
+			return null;
+		}
+	}
+
+	CompletableFuture<Map<String, Map<String, Boolean>>> getProductsVersionsManifestAsync(String productListReleaseVersion) {
+		return AsyncTasks.submit(executor, () -> getProductsVersionsManifest(productListReleaseVersion),
+				asyncTimeoutMillis);
+	}
+
+	InputStream getProductList(String productListReleaseVersion) throws IOException {
+		return getContentStream(new URL(url, Utils.coordsToRelativeFilePath(ProductList.PRODUCT_LIST_GROUP_ID,
+				ProductList.PRODUCT_LIST_ARTIFACT_ID, productListReleaseVersion, ".json", null).replace('\\', '/')));
+	}
+
+	CompletableFuture<InputStream> getProductListAsync(String productListReleaseVersion) {
+		return AsyncTasks.submit(executor, () -> getProductList(productListReleaseVersion), asyncTimeoutMillis);
+	}
+
+	CompletableFuture<String> getProductListReleaseVersionAsync() {
+		return AsyncTasks.submit(executor, this::getProductListReleaseVersion, asyncTimeoutMillis);
+	}
+
+	static String readAppliedVersions(String appliedVersionsUrl, MetadataCache metadataCache) throws IOException {
+		if (appliedVersionsUrl == null || appliedVersionsUrl.isEmpty())
+			return "";
+		try (InputStream is = getContentStream(new URL(appliedVersionsUrl), null, null, metadataCache)) {
+			return IOUtils.toString(is, StandardCharsets.UTF_8);
+		}
+	}
+
 	private InputStream getContentStream(URL url) throws IOException {
-		if (url.getProtocol().equals("file")) {
+		if (repositoryStats == null || url.getProtocol().equals("file"))
+			return getContentStream(url, userName, password, metadataCache);
+		long start = System.currentTimeMillis();
+		try {
+			InputStream is = getContentStream(url, userName, password, metadataCache);
+			repositoryStats.recordLatency(toString(), System.currentTimeMillis() - start);
+			return is;
+		} catch (FileNotFoundException e) {
+			repositoryStats.recordLatency(toString(), System.currentTimeMillis() - start);
+			throw e;
+		} catch (IOException e) {
+			repositoryStats.recordFailure(toString());
+			throw e;
+		}
+	}
+
+	@SneakyThrows
+	private static InputStream getContentStream(URL url, String userName, String password,
+	                                            MetadataCache metadataCache) throws IOException {
+		if (url.getProtocol().equals("file"))
 			return url.openStream();
-		} else {
-			HttpURLConnection con = (HttpURLConnection) url.openConnection();
-			con.setDoOutput(true);
-			con.setRequestMethod("GET");
-			if (userName != null && password != null)
-				con.setRequestProperty("Authorization", "Basic "
-						+ Base64.encodeBase64String((userName + ":" + password).getBytes()));
-			if (con.getResponseCode() == 401)
-				throw new FileNotFoundException();
-			return con.getInputStream();
+		String key = url.toString();
+		HttpGet get = new HttpGet(url.toURI());
+		AsyncTasks.onAbort(get::abort);
+		if (userName != null && password != null)
+			get.setHeader(HttpHeaders.AUTHORIZATION, "Basic "
+					+ Base64.encodeBase64String((userName + ":" + password).getBytes()));
+		MetadataCache.Entry cached = metadataCache == null ? null : metadataCache.get(key);
+		if (cached != null) {
+			if (cached.getEtag() != null)
+				get.setHeader(HttpHeaders.IF_NONE_MATCH, cached.getEtag());
+			if (cached.getLastModified() != null)
+				get.setHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+		}
+		try (CloseableHttpResponse response = HTTP_CLIENT.execute(get)) {
+			int status = response.getStatusLine().getStatusCode();
+			if (status == HttpStatus.SC_NOT_MODIFIED && cached != null) {
+				EntityUtils.consume(response.getEntity());
+				return new FileInputStream(metadataCache.getContentFile(key));
+			}
+			if (status == HttpStatus.SC_NOT_FOUND) {
+				EntityUtils.consume(response.getEntity());
+				throw new FileNotFoundException(key);
+			}
+			if (status == HttpStatus.SC_UNAUTHORIZED) {
+				EntityUtils.consume(response.getEntity());
+				throw new UnauthorizedException(key);
+			}
+			if (status != HttpStatus.SC_OK) {
+				EntityUtils.consume(response.getEntity());
+				throw new IOException("Server returned HTTP response code: " + status + " for URL: " + key);
+			}
+			byte[] content = EntityUtils.toByteArray(response.getEntity());
+			if (metadataCache != null)
+				metadataCache.put(key, getHeader(response, HttpHeaders.ETAG),
+						getHeader(response, HttpHeaders.LAST_MODIFIED), content);
+			return new ByteArrayInputStream(content);
 		}
 	}
 
@@ -122,4 +359,10 @@ public class ArtifactoryReader {
 	public String toString() {
 		return url.toString();
 	}
+
+	static class UnauthorizedException extends FileNotFoundException {
+		UnauthorizedException(String url) {
+			super(url);
+		}
+	}
 }
\ No newline at end of file
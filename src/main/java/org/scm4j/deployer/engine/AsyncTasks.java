@@ -0,0 +1,131 @@
+package org.scm4j.deployer.engine;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+final class AsyncTasks {
+
+	private static final long IDLE_THREAD_SECONDS = 60;
+	private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("scm4j-timeout-%d").setDaemon(true).build());
+	private static final ThreadLocal<CompletableFuture<?>> CURRENT = new ThreadLocal<>();
+	private static final ThreadLocal<ExecutorService> WORKER_OF = new ThreadLocal<>();
+
+	private AsyncTasks() {
+	}
+
+	static ThreadPoolExecutor newExecutor(String nameFormat, int threads) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	static <T> CompletableFuture<T> submit(ExecutorService executor, Callable<T> task, long timeoutMillis) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		Future<?> future;
+		try {
+			future = executor.submit(() -> {
+				if (result.isDone())
+					return;
+				CURRENT.set(result);
+				try {
+					result.complete(task.call());
+				} catch (Throwable e) {
+					result.completeExceptionally(e);
+				} finally {
+					CURRENT.remove();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			result.completeExceptionally(e);
+			return result;
+		}
+		ScheduledFuture<?> timeout = timeoutMillis > 0 ? TIMER.schedule(() -> result.completeExceptionally(
+				new TimeoutException("Task timed out after " + timeoutMillis + " ms")),
+				timeoutMillis, TimeUnit.MILLISECONDS) : null;
+		result.whenComplete((res, e) -> {
+			if (timeout != null)
+				timeout.cancel(false);
+			if (!future.isDone())
+				future.cancel(true);
+		});
+		return result;
+	}
+
+	static <T> List<CompletableFuture<T>> submitAll(ExecutorService executor, List<Callable<T>> tasks) {
+		List<CompletableFuture<T>> futures = new ArrayList<>();
+		boolean inline = tasks.size() <= 1 || WORKER_OF.get() == executor;
+		for (Callable<T> task : tasks)
+			futures.add(inline ? call(task) : submit(executor, onWorker(executor, withCallerPriority(task)), 0));
+		return futures;
+	}
+
+	private static <T> CompletableFuture<T> call(Callable<T> task) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		try {
+			result.complete(task.call());
+		} catch (Throwable e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+
+	private static <T> Callable<T> onWorker(ExecutorService executor, Callable<T> task) {
+		return () -> {
+			WORKER_OF.set(executor);
+			try {
+				return task.call();
+			} finally {
+				WORKER_OF.remove();
+			}
+		};
+	}
+
+	static <T> Callable<T> withCallerPriority(Callable<T> task) {
+		int priority = Thread.currentThread().getPriority();
+		return () -> {
+			Thread thread = Thread.currentThread();
+			int original = thread.getPriority();
+			thread.setPriority(priority);
+			try {
+				return task.call();
+			} finally {
+				thread.setPriority(original);
+			}
+		};
+	}
+
+	static void onAbort(Runnable abort) {
+		CompletableFuture<?> current = CURRENT.get();
+		if (current != null)
+			current.whenComplete((res, e) -> {
+				if (e != null)
+					abort.run();
+			});
+	}
+
+	static <T> T getResult(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+		}
+	}
+}
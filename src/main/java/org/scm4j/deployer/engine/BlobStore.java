@@ -0,0 +1,100 @@
+package org.scm4j.deployer.engine;
+
+import com.google.common.hash.Hashing;
+import lombok.Data;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.aether.AbstractRepositoryListener;
+import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.RepositoryListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+@Data
+@Slf4j
+class BlobStore {
+
+	public static final String BLOBS_FOLDER_NAME = "blobs";
+	private final File folder;
+	private final ProductIndex index;
+
+	BlobStore(File workingFolder, ProductIndex index) {
+		this.folder = new File(workingFolder, BLOBS_FOLDER_NAME);
+		this.index = index;
+	}
+
+	@SneakyThrows
+	static String getChecksum(File file) {
+		return com.google.common.io.Files.hash(file, Hashing.sha1()).toString();
+	}
+
+	File getBlob(String checksum) {
+		return new File(new File(folder, checksum.substring(0, 2)), checksum);
+	}
+
+	@SneakyThrows
+	synchronized File store(File file) {
+		File blob = getBlob(index.getChecksum(file, BlobStore::getChecksum));
+		if (!blob.exists()) {
+			blob.getParentFile().mkdirs();
+			File tmp = new File(blob.getPath() + ".tmp");
+			FileUtils.deleteQuietly(tmp);
+			if (!createLink(tmp, file))
+				FileUtils.copyFile(file, tmp);
+			Files.move(tmp.toPath(), blob.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		}
+		return blob;
+	}
+
+	@SneakyThrows
+	synchronized void link(File source, File target) {
+		File blob = store(source);
+		if (target.exists() && Files.isSameFile(blob.toPath(), target.toPath()))
+			return;
+		target.getParentFile().mkdirs();
+		File tmp = new File(target.getPath() + ".tmp");
+		FileUtils.deleteQuietly(tmp);
+		if (!createLink(tmp, blob)) {
+			log.debug("Can't link " + target.getPath() + " to " + blob.getPath() + ", copying");
+			FileUtils.copyFile(source, tmp);
+		}
+		Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		index.putChecksum(target, blob.getName());
+	}
+
+	synchronized void share(File file) {
+		link(file, file);
+	}
+
+	RepositoryListener getRepositoryListener() {
+		return new AbstractRepositoryListener() {
+			@Override
+			public void artifactDownloaded(RepositoryEvent event) {
+				File file = event.getFile();
+				if (event.getException() != null || file == null || !file.isFile())
+					return;
+				try {
+					share(file);
+				} catch (Exception e) {
+					log.debug("Can't store " + file.getPath() + " in " + folder.getPath() + " cause of " + e.toString());
+				}
+			}
+		};
+	}
+
+	private static boolean createLink(File link, File existing) {
+		Path linkPath = link.toPath();
+		try {
+			Files.createLink(linkPath, existing.toPath());
+			return true;
+		} catch (IOException | UnsupportedOperationException | SecurityException e) {
+			return false;
+		}
+	}
+}
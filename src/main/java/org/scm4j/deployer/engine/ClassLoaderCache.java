@@ -0,0 +1,90 @@
+package org.scm4j.deployer.engine;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@Slf4j
+class ClassLoaderCache implements Closeable {
+
+	private final int maxSize;
+	private final Map<String, Entry> loaders;
+
+	ClassLoaderCache(int maxSize) {
+		this.maxSize = maxSize;
+		this.loaders = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	private static void closeLoader(String key, URLClassLoader loader) {
+		try {
+			loader.close();
+		} catch (IOException e) {
+			log.warn("Can't close class loader of " + key + " cause of " + e.toString());
+		}
+	}
+
+	synchronized URLClassLoader acquire(String key, Supplier<URL[]> urls) {
+		Entry entry = loaders.get(key);
+		if (entry == null) {
+			entry = new Entry(URLClassLoader.newInstance(urls.get()));
+			loaders.put(key, entry);
+		}
+		entry.refs++;
+		evict();
+		return entry.loader;
+	}
+
+	synchronized void release(String key) {
+		Entry entry = loaders.get(key);
+		if (entry != null && entry.refs > 0)
+			entry.refs--;
+		evict();
+	}
+
+	synchronized void invalidate(String key) {
+		Entry entry = loaders.remove(key);
+		if (entry != null)
+			closeLoader(key, entry.loader);
+	}
+
+	synchronized boolean contains(String key) {
+		return loaders.containsKey(key);
+	}
+
+	synchronized int size() {
+		return loaders.size();
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<String, Entry>> it = loaders.entrySet().iterator();
+		while (loaders.size() > maxSize && it.hasNext()) {
+			Map.Entry<String, Entry> eldest = it.next();
+			if (eldest.getValue().refs == 0) {
+				it.remove();
+				closeLoader(eldest.getKey(), eldest.getValue().loader);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		loaders.forEach((key, entry) -> closeLoader(key, entry.loader));
+		loaders.clear();
+	}
+
+	private static final class Entry {
+		private final URLClassLoader loader;
+		private int refs;
+
+		private Entry(URLClassLoader loader) {
+			this.loader = loader;
+		}
+	}
+}
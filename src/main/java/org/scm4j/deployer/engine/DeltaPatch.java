@@ -0,0 +1,232 @@
+package org.scm4j.deployer.engine;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import lombok.Cleanup;
+import lombok.SneakyThrows;
+import org.scm4j.deployer.engine.exceptions.EDeltaPatch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+final class DeltaPatch {
+
+	static final String EXTENSION = "delta";
+	static final String CLASSIFIER_PREFIX = "delta-";
+	static final int BLOCK_SIZE = 4096;
+	private static final String MAGIC = "SCM4JDLT";
+	private static final int FORMAT_VERSION = 1;
+	private static final byte OP_END = 0;
+	private static final byte OP_COPY = 1;
+	private static final byte OP_DATA = 2;
+
+	private DeltaPatch() {
+	}
+
+	static String getClassifier(String classifier, String baseVersion) {
+		return (classifier == null || classifier.isEmpty() ? "" : classifier + "-") + CLASSIFIER_PREFIX + baseVersion;
+	}
+
+	@SneakyThrows
+	static void create(File base, File target, File patch) {
+		Map<Integer, Map<String, Long>> baseBlocks = new HashMap<>();
+		byte[] block = new byte[BLOCK_SIZE];
+		try (InputStream is = new BufferedInputStream(new FileInputStream(base))) {
+			long offset = 0;
+			while (readBlock(is, block) == BLOCK_SIZE) {
+				baseBlocks.computeIfAbsent(new RollingChecksum(block).get(), key -> new HashMap<>())
+						.putIfAbsent(strongChecksum(block, 0), offset);
+				offset += BLOCK_SIZE;
+			}
+		}
+		@Cleanup
+		DataOutputStream os = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(patch)));
+		os.writeBytes(MAGIC);
+		os.writeInt(FORMAT_VERSION);
+		os.writeLong(target.length());
+		os.writeUTF(BlobStore.getChecksum(target));
+		PatchWriter writer = new PatchWriter(os);
+		try (InputStream is = new BufferedInputStream(new FileInputStream(target))) {
+			int length = readBlock(is, block);
+			int start = 0;
+			RollingChecksum checksum = new RollingChecksum(block);
+			while (length == BLOCK_SIZE) {
+				Map<String, Long> candidates = baseBlocks.get(checksum.get());
+				Long baseOffset = candidates == null ? null : candidates.get(strongChecksum(block, start));
+				if (baseOffset != null) {
+					writer.copy(baseOffset, BLOCK_SIZE);
+					length = readBlock(is, block);
+					start = 0;
+					checksum = new RollingChecksum(block);
+					continue;
+				}
+				int next = is.read();
+				writer.data(block[start]);
+				if (next < 0) {
+					start = (start + 1) % BLOCK_SIZE;
+					length--;
+					break;
+				}
+				checksum.roll(block[start], (byte) next);
+				block[start] = (byte) next;
+				start = (start + 1) % BLOCK_SIZE;
+			}
+			for (int i = 0; i < length; i++)
+				writer.data(block[(start + i) % BLOCK_SIZE]);
+		}
+		writer.flush();
+		os.writeByte(OP_END);
+	}
+
+	static void apply(File base, File patch, File target) throws IOException {
+		Hasher hasher = Hashing.sha1().newHasher();
+		long length;
+		String checksum;
+		try (DataInputStream is = new DataInputStream(new BufferedInputStream(new FileInputStream(patch)));
+		     RandomAccessFile baseFile = new RandomAccessFile(base, "r");
+		     BufferedOutputStream os = new BufferedOutputStream(new FileOutputStream(target))) {
+			byte[] magic = new byte[MAGIC.length()];
+			is.readFully(magic);
+			if (!Arrays.equals(magic, MAGIC.getBytes("US-ASCII")) || is.readInt() != FORMAT_VERSION)
+				throw new EDeltaPatch(patch.getName() + " is not a delta patch");
+			length = is.readLong();
+			checksum = is.readUTF();
+			byte[] buffer = new byte[BLOCK_SIZE];
+			byte op;
+			while ((op = is.readByte()) != OP_END) {
+				if (op == OP_COPY) {
+					long offset = is.readLong();
+					int size = is.readInt();
+					baseFile.seek(offset);
+					while (size > 0) {
+						int chunk = Math.min(size, buffer.length);
+						baseFile.readFully(buffer, 0, chunk);
+						os.write(buffer, 0, chunk);
+						hasher.putBytes(buffer, 0, chunk);
+						size -= chunk;
+					}
+				} else if (op == OP_DATA) {
+					int size = is.readInt();
+					byte[] bytes = new byte[size];
+					is.readFully(bytes);
+					os.write(bytes);
+					hasher.putBytes(bytes);
+				} else {
+					throw new EDeltaPatch("Unknown operation " + op + " in " + patch.getName());
+				}
+			}
+		} catch (EOFException e) {
+			throw new EDeltaPatch("Unexpected end of " + patch.getName());
+		}
+		if (target.length() != length || !hasher.hash().toString().equals(checksum))
+			throw new EDeltaPatch(target.getName() + " rebuilt from " + patch.getName() + " has wrong checksum");
+	}
+
+	private static int readBlock(InputStream is, byte[] block) throws IOException {
+		int total = 0;
+		while (total < block.length) {
+			int read = is.read(block, total, block.length - total);
+			if (read < 0)
+				break;
+			total += read;
+		}
+		return total;
+	}
+
+	private static String strongChecksum(byte[] ring, int start) {
+		Hasher hasher = Hashing.sha1().newHasher();
+		hasher.putBytes(ring, start, ring.length - start);
+		hasher.putBytes(ring, 0, start);
+		return hasher.hash().toString();
+	}
+
+	private static final class RollingChecksum {
+		private static final int MOD = 1 << 16;
+		private int a;
+		private int b;
+
+		private RollingChecksum(byte[] block) {
+			for (int i = 0; i < block.length; i++) {
+				a += block[i] & 0xff;
+				b += (block.length - i) * (block[i] & 0xff);
+			}
+			a %= MOD;
+			b %= MOD;
+		}
+
+		private void roll(byte out, byte in) {
+			a = Math.floorMod(a - (out & 0xff) + (in & 0xff), MOD);
+			b = Math.floorMod(b - BLOCK_SIZE * (out & 0xff) + a, MOD);
+		}
+
+		private int get() {
+			return a | (b << 16);
+		}
+	}
+
+	private static final class PatchWriter {
+		private static final int MAX_DATA_SIZE = 1024 * 1024;
+		private final DataOutputStream os;
+		private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+		private long copyOffset;
+		private int copyLength;
+
+		private PatchWriter(DataOutputStream os) {
+			this.os = os;
+		}
+
+		private void copy(long offset, int length) throws IOException {
+			flushData();
+			if (copyLength > 0 && copyOffset + copyLength == offset && copyLength <= Integer.MAX_VALUE - length) {
+				copyLength += length;
+				return;
+			}
+			flushCopy();
+			copyOffset = offset;
+			copyLength = length;
+		}
+
+		private void data(byte value) throws IOException {
+			flushCopy();
+			data.write(value);
+			if (data.size() >= MAX_DATA_SIZE)
+				flushData();
+		}
+
+		private void flush() throws IOException {
+			flushCopy();
+			flushData();
+		}
+
+		private void flushCopy() throws IOException {
+			if (copyLength == 0)
+				return;
+			os.writeByte(OP_COPY);
+			os.writeLong(copyOffset);
+			os.writeInt(copyLength);
+			copyLength = 0;
+		}
+
+		private void flushData() throws IOException {
+			if (data.size() == 0)
+				return;
+			os.writeByte(OP_DATA);
+			os.writeInt(data.size());
+			data.writeTo(os);
+			data.reset();
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package org.scm4j.deployer.engine;
+
+import com.google.gson.reflect.TypeToken;
+import lombok.Getter;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+
+import java.io.File;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Getter
+class DependencyLock extends PersistedJson<List<String>> {
+
+	static final String LOCK_FILE_EXTENSION = "lock.json";
+	private static final Type LOCK_TYPE = new TypeToken<Map<String, List<String>>>() {
+	}.getType();
+	private final File repository;
+
+	private DependencyLock(File lockFile, File repository) {
+		super(lockFile, LOCK_TYPE);
+		this.repository = repository;
+	}
+
+	static DependencyLock load(File repository, Artifact product) {
+		return new DependencyLock(new File(repository, Utils.coordsToRelativeFilePath(product.getGroupId(),
+				product.getArtifactId(), product.getVersion(), LOCK_FILE_EXTENSION, product.getClassifier())),
+				repository);
+	}
+
+	static boolean isLockable(Artifact artifact) {
+		return artifact != null && !artifact.isSnapshot();
+	}
+
+	synchronized List<Artifact> get(Artifact artifact) {
+		List<String> coords = getEntries().get(artifact.toString());
+		if (coords == null)
+			return null;
+		List<Artifact> resolved = new ArrayList<>();
+		for (String coord : coords) {
+			Artifact art = new DefaultArtifact(coord);
+			File file = new File(repository, Utils.coordsToRelativeFilePath(art.getGroupId(), art.getArtifactId(),
+					art.getVersion(), art.getExtension(), art.getClassifier()));
+			if (!file.exists())
+				return null;
+			resolved.add(art.setFile(file));
+		}
+		return resolved;
+	}
+
+	synchronized void put(Artifact artifact, List<Artifact> resolved) {
+		if (!isLockable(artifact) || resolved.stream().anyMatch(art -> !isLockable(art)))
+			return;
+		getEntries().put(artifact.toString(), resolved.stream()
+				.map(Artifact::toString)
+				.collect(Collectors.toList()));
+		markChanged();
+	}
+}
@@ -20,7 +20,6 @@ import org.scm4j.deployer.api.IImmutable;
 import org.scm4j.deployer.api.ILegacyProduct;
 import org.scm4j.deployer.api.IProduct;
 import org.scm4j.deployer.api.IProductStructure;
-import org.scm4j.deployer.api.ProductInfo;
 import org.scm4j.deployer.api.ProductStructure;
 
 import java.io.File;
@@ -55,6 +54,7 @@ class Deployer {
 	private final File workingFolder;
 	private final File deployedProductsFile;
 	private final Type deployedProductsType;
+	private final JsonFileCache<ProductDescription> deployedProductsCache;
 	private String deploymentPath;
 
 	Deployer(File workingFolder, Downloader downloader) {
@@ -63,6 +63,7 @@ class Deployer {
 		this.deployedProductsType = new TypeToken<Map<String, ProductDescription>>() {
 		}.getType();
 		this.deployedProductsFile = new File(workingFolder, DEPLOYED_PRODUCTS);
+		this.deployedProductsCache = new JsonFileCache<>(deployedProductsFile, deployedProductsType);
 	}
 
 	private static DeploymentResult compareVersionWithDeployedVersion(String version, String legacyVersion) {
@@ -118,9 +119,11 @@ class Deployer {
 	private void writeProductDescriptionInDeployedProductsJson(String coords, String simpleName, String version) {
 		ProductDescription productDescription = new ProductDescription(simpleName, Instant.now().toString(), deploymentPath,
 				version);
-		Map<String, ProductDescription> deployedProducts = Utils.readJson(deployedProductsFile, deployedProductsType);
-		deployedProducts.put(coords, productDescription);
-		Utils.writeJson(deployedProducts, deployedProductsFile);
+		synchronized (deployedProductsCache) {
+			Map<String, ProductDescription> deployedProducts = new HashMap<>(deployedProductsCache.read());
+			deployedProducts.put(coords, productDescription);
+			deployedProductsCache.write(deployedProducts);
+		}
 	}
 
 	@SuppressWarnings("unchecked")
@@ -132,7 +135,7 @@ class Deployer {
 		String version = art.getVersion();
 		String productName = artifactId + "-" + version;
 		log.info("product to deploy " + productName);
-		Map<String, ProductDescription> deployedProducts = Utils.readJson(deployedProductsFile, deployedProductsType);
+		Map<String, ProductDescription> deployedProducts = deployedProductsCache.read();
 		IDeployedProduct deployedProduct = null;
 		IProduct requiredProduct;
 		ProductDescription productDescription = deployedProducts.get(coords);
@@ -312,13 +315,11 @@ class Deployer {
 				.map(DefaultArtifact::new)
 				.collect(Collectors.toList());
 		DeploymentResult res = OK;
-		Map<String, ProductInfo> products = downloader.getProductList().getProducts();
 		for (Artifact dependent : dependents) {
-			String simpleName = products.entrySet().stream()
-					.filter(e -> e.getValue().getArtifactId().equals(
-							dependent.getGroupId() + ":" + dependent.getArtifactId()))
-					.map(Map.Entry::getKey)
-					.findFirst().orElseThrow(() -> new RuntimeException("Wrong dependent product!"));
+			String simpleName = downloader.getProductList().getSimpleName(
+					dependent.getGroupId() + ":" + dependent.getArtifactId());
+			if (simpleName == null)
+				throw new RuntimeException("Wrong dependent product!");
 			res = deploy(dependent, simpleName);
 			if (res == FAILED || res == NEED_REBOOT || res == REBOOT_CONTINUE)
 				return res;
@@ -408,7 +409,7 @@ class Deployer {
 
 	@SuppressWarnings("unchecked")
 	Map<String, ProductDescription> listDeployedProducts() {
-		return Utils.readJson(new File(workingFolder, DEPLOYED_PRODUCTS), deployedProductsType);
+		return deployedProductsCache.read();
 	}
 
 	enum Command {DEPLOY, UNDEPLOY, STOP, START}
@@ -7,19 +7,20 @@ import org.scm4j.deployer.api.DeploymentResult;
 import org.scm4j.deployer.api.IProductDeployer;
 import org.scm4j.deployer.api.ProductInfo;
 
+import java.io.Closeable;
 import java.io.File;
-import java.io.IOException;
-import java.net.URLClassLoader;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Data
-public class DeployerEngine implements IProductDeployer {
+public class DeployerEngine implements IProductDeployer, Closeable {
 
 	private final Downloader downloader;
 	private final Deployer deployer;
+	private Prefetcher prefetcher;
 
 	public DeployerEngine(File portableFolder, File workingFolder, String... productListArtifactoryUrls) {
 		if (portableFolder == null)
@@ -28,33 +29,79 @@ public class DeployerEngine implements IProductDeployer {
 		this.deployer = new Deployer(workingFolder, downloader);
 	}
 
+	public void setResolveThreads(int resolveThreads) {
+		downloader.setResolveThreads(resolveThreads);
+	}
+
+	public void setDownloadSegments(int segments, long thresholdBytes) {
+		downloader.setDownloadSegments(segments);
+		downloader.setSegmentThreshold(thresholdBytes);
+	}
+
+	public void setDeltaUpdates(boolean deltaUpdates) {
+		downloader.setDeltaUpdates(deltaUpdates);
+	}
+
+	public void setMetadataTtl(long ttl, TimeUnit unit) {
+		downloader.getVersionsCache().setTtlMillis(unit.toMillis(ttl));
+	}
+
+	public void setRefreshThreads(int refreshThreads) {
+		downloader.getProductList().setRefreshThreads(refreshThreads);
+	}
+
+	public Map<String, RuntimeException> getVersionsErrors() {
+		return downloader.getProductList().getVersionsErrors();
+	}
+
+	synchronized Prefetcher getPrefetcher() {
+		if (prefetcher == null)
+			prefetcher = new Prefetcher(downloader, deployer);
+		return prefetcher;
+	}
+
+	public Map<String, String> prefetch() {
+		return getPrefetcher().prefetch();
+	}
+
+	public void schedulePrefetch(long initialDelay, long period, TimeUnit unit) {
+		getPrefetcher().schedule(initialDelay, period, unit);
+	}
+
 	@Override
 	public DeploymentResult deploy(String simpleName, String version) {
 		listProducts();
-		Artifact artifact = Utils.initializeArtifact(downloader, simpleName, version);
-		DeploymentResult res = deployer.deploy(artifact, simpleName);
-		URLClassLoader loader = downloader.getLoader();
-		if (loader != null) {
+		synchronized (downloader) {
+			Artifact artifact = Utils.initializeArtifact(downloader, simpleName, version);
 			try {
-				loader.close();
-			} catch (IOException e) {
-				//No problem
+				return deployer.deploy(artifact, simpleName);
+			} finally {
+				downloader.releaseLoaders();
 			}
 		}
-		return res;
 	}
 
 	@Override
 	public void download(String simpleName, String version) {
 		listProducts();
-		Artifact artifact = Utils.initializeArtifact(downloader, simpleName, version);
-		downloader.getProductWithDependency(artifact.toString());
-		URLClassLoader loader = downloader.getLoader();
-		if (loader != null) {
+		synchronized (downloader) {
+			Artifact artifact = Utils.initializeArtifact(downloader, simpleName, version);
 			try {
-				loader.close();
-			} catch (IOException e) {
-				//No problem
+				downloader.getProductWithDependency(artifact.toString());
+			} finally {
+				downloader.releaseLoaders();
+			}
+		}
+	}
+
+	public Map<String, DownloadResult> downloadWithDependents(String simpleName, String version) {
+		listProducts();
+		synchronized (downloader) {
+			Artifact artifact = Utils.initializeArtifact(downloader, simpleName, version);
+			try {
+				return downloader.downloadProductTree(artifact.toString());
+			} finally {
+				downloader.releaseLoaders();
 			}
 		}
 	}
@@ -62,17 +109,21 @@ public class DeployerEngine implements IProductDeployer {
 	@Override
 	@SneakyThrows
 	public Map<String, ProductInfo> listProducts() {
-		ProductListEntry entry = downloader.getProductList().readFromProductList();
-		return entry.getProducts();
+		downloader.getProductList().readFromProductList();
+		return downloader.getProductList().getProducts();
 	}
 
 	@Override
 	@SneakyThrows
 	public Map<String, ProductInfo> refreshProducts() {
-		downloader.getProductList().downloadProductList();
+		downloader.getProductList().refresh();
 		return listProducts();
 	}
 
+	public void scheduleProductListRefresh(long initialDelay, long period, TimeUnit unit) {
+		downloader.getProductList().scheduleRefresh(initialDelay, period, unit);
+	}
+
 	@Override
 	public Map<String, Boolean> listProductVersions(String simpleName) {
 		Optional<Map<String, Boolean>> versions = Optional.ofNullable
@@ -82,11 +133,12 @@ public class DeployerEngine implements IProductDeployer {
 
 	@Override
 	public Map<String, Boolean> refreshProductVersions(String simpleName) {
-		try {
-			downloader.getProductList().downloadProductsVersions();
-		} catch (IOException e) {
-			throw new RuntimeException(e);
+		ProductInfo info = downloader.getProductList().getProducts().get(simpleName);
+		if (info != null) {
+			downloader.getVersionsCache().invalidate(info.getArtifactId());
+			downloader.getProductList().getRepos().forEach(repo -> repo.invalidateMissingMetadata(info.getArtifactId()));
 		}
+		downloader.getProductList().downloadProductVersions(simpleName);
 		return listProductVersions(simpleName);
 	}
 
@@ -100,4 +152,13 @@ public class DeployerEngine implements IProductDeployer {
 		}
 		return deployed;
 	}
+
+	@Override
+	public synchronized void close() {
+		if (prefetcher != null) {
+			prefetcher.close();
+			prefetcher = null;
+		}
+		downloader.close();
+	}
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package org.scm4j.deployer.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.aether.artifact.DefaultArtifact;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+@Slf4j
+class DownloadCoordinator {
+
+	private final Downloader downloader;
+
+	DownloadCoordinator(Downloader downloader) {
+		this.downloader = downloader;
+	}
+
+	private static String normalize(String coords) {
+		return new DefaultArtifact(coords).toString();
+	}
+
+	private static RuntimeException toRuntime(Throwable e) {
+		return e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+	}
+
+	Map<String, DownloadResult> download(String rootCoords) {
+		Map<String, DownloadResult> results = new LinkedHashMap<>();
+		Map<String, Downloader.LoadedProduct> products = discover(normalize(rootCoords), results);
+		Downloader.LoadedProduct root = products.values().iterator().next();
+		List<Callable<DownloadResult>> tasks = products.values().stream()
+				.map(loaded -> (Callable<DownloadResult>) () -> loadComponents(loaded))
+				.collect(Collectors.toList());
+		Iterator<CompletableFuture<DownloadResult>> futures = AsyncTasks.submitAll(downloader.getExecutor(), tasks)
+				.iterator();
+		for (String coords : products.keySet())
+			results.put(coords, getResult(coords, futures.next()));
+		downloader.setProduct(root.getProduct());
+		downloader.setProductArtifact(root.getArtifact());
+		downloader.setLoader(root.getLoader());
+		return results;
+	}
+
+	private Map<String, Downloader.LoadedProduct> discover(String rootCoords, Map<String, DownloadResult> results) {
+		Map<String, Downloader.LoadedProduct> products = new LinkedHashMap<>();
+		List<String> level = Collections.singletonList(rootCoords);
+		while (!level.isEmpty()) {
+			List<Callable<Downloader.LoadedProduct>> tasks = level.stream()
+					.map(coords -> (Callable<Downloader.LoadedProduct>) () -> downloader.loadProduct(
+							new DefaultArtifact(coords)))
+					.collect(Collectors.toList());
+			List<CompletableFuture<Downloader.LoadedProduct>> futures = AsyncTasks.submitAll(downloader.getExecutor(),
+					tasks);
+			Set<String> next = new LinkedHashSet<>();
+			for (int i = 0; i < level.size(); i++) {
+				String coords = level.get(i);
+				try {
+					Downloader.LoadedProduct loaded = AsyncTasks.getResult(futures.get(i));
+					products.put(coords, loaded);
+					for (String dependent : loaded.getProduct().getDependentProducts())
+						next.add(normalize(dependent));
+				} catch (RuntimeException e) {
+					if (coords.equals(rootCoords))
+						throw e;
+					log.warn("Can't download dependent product " + coords + " cause of " + e.toString());
+					results.put(coords, new DownloadResult(coords, e));
+				}
+			}
+			next.removeAll(products.keySet());
+			next.removeAll(results.keySet());
+			level = new ArrayList<>(next);
+		}
+		return products;
+	}
+
+	private DownloadResult loadComponents(Downloader.LoadedProduct loaded) {
+		String coords = loaded.getArtifact().toString();
+		try {
+			downloader.loadProductDependency(loaded.getProduct(), loaded.getArtifact(), loaded.getRepository());
+			return new DownloadResult(coords, null);
+		} catch (Exception e) {
+			log.warn("Can't download components of " + coords + " cause of " + e.toString());
+			return new DownloadResult(coords, toRuntime(e));
+		}
+	}
+
+	private DownloadResult getResult(String coords, CompletableFuture<DownloadResult> future) {
+		try {
+			return AsyncTasks.getResult(future);
+		} catch (RuntimeException e) {
+			return new DownloadResult(coords, e);
+		}
+	}
+}
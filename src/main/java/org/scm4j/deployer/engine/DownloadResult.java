@@ -0,0 +1,14 @@
+package org.scm4j.deployer.engine;
+
+import lombok.Data;
+
+@Data
+public class DownloadResult {
+
+	private final String productCoords;
+	private final RuntimeException error;
+
+	public boolean isOk() {
+		return error == null;
+	}
+}
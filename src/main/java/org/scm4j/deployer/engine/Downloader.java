@@ -1,19 +1,24 @@
 package org.scm4j.deployer.engine;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import lombok.Cleanup;
 import lombok.Data;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.collection.CollectRequest;
 import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.repository.LocalArtifactRegistration;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.repository.RepositoryPolicy;
 import org.eclipse.aether.resolution.ArtifactRequest;
@@ -22,45 +27,80 @@ import org.eclipse.aether.resolution.ArtifactResult;
 import org.eclipse.aether.resolution.DependencyRequest;
 import org.eclipse.aether.resolution.DependencyResolutionException;
 import org.eclipse.aether.util.artifact.SubArtifact;
+import org.eclipse.aether.util.listener.ChainedRepositoryListener;
+import org.eclipse.aether.util.listener.ChainedTransferListener;
 import org.scm4j.deployer.api.DeploymentContext;
 import org.scm4j.deployer.api.IComponent;
 import org.scm4j.deployer.api.IDeploymentContext;
 import org.scm4j.deployer.api.IDownloader;
 import org.scm4j.deployer.api.IProduct;
-import org.scm4j.deployer.api.ProductInfo;
+import org.scm4j.deployer.engine.exceptions.EDeltaPatch;
 import org.scm4j.deployer.engine.exceptions.EIncompatibleApiVersion;
 import org.scm4j.deployer.engine.exceptions.EProductListEntryNotFound;
 import org.scm4j.deployer.engine.exceptions.EProductNotFound;
+import org.scm4j.deployer.engine.transport.SegmentedTransporterFactory;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
 
 @Data
 @Slf4j
-class Downloader implements IDownloader {
+class Downloader implements IDownloader, Closeable {
 
 	public static final String REPOSITORY_FOLDER_NAME = "repository";
 	private static final String API_NAME = "scm4j-deployer-api";
+	private static final int LOADER_CACHE_SIZE = 8;
+	private static final String CONNECTOR_THREADS = "aether.connector.basic.threads";
+	private static final Supplier<String> DEPLOYER_API_VERSION = Suppliers.memoize(Downloader::loadDeployerApiVersion);
 	private final Map<String, IDeploymentContext> depCtx;
 	private final ProductList productList;
 	private final File workingRepository;
 	private final File portableRepository;
 	private final RepositorySystem system;
-	private RepositorySystemSession session;
+	private final Map<File, RepositorySystemSession> sessions;
+	private ProductListEntry sessionsProductListEntry;
+	private List<RemoteRepository> remoteRepos;
+	private final ClassLoaderCache loaderCache;
+	private final BlobStore blobStore;
+	private final RepositoryStats repositoryStats;
+	private final NegativeCache negativeCache;
+	private final VersionsCache versionsCache;
+	private final ProductIndex productIndex;
+	private final TransferLocks transferLocks;
+	private final Map<String, Boolean> apiCompatibility;
+	private final List<String> acquiredLoaders;
 	private URLClassLoader loader;
 	private IProduct product;
+	private Artifact productArtifact;
+	private int resolveThreads = 1;
+	private ThreadPoolExecutor executor;
+	private final Object executorLock = new Object();
+	private final Object remoteReposLock = new Object();
+	private int downloadSegments = SegmentedTransporterFactory.DEFAULT_SEGMENTS;
+	private long segmentThreshold = SegmentedTransporterFactory.DEFAULT_SEGMENT_THRESHOLD;
+	private boolean deltaUpdates;
 
 	Downloader(File portableFolder, File workingFolder, String... productListArtifactoryUrls) {
 		this.workingRepository = new File(workingFolder, REPOSITORY_FOLDER_NAME);
@@ -69,9 +109,23 @@ class Downloader implements IDownloader {
 			portableRepository.mkdirs();
 		if (!workingRepository.exists())
 			workingRepository.mkdirs();
+		this.negativeCache = new NegativeCache(workingFolder);
+		this.repositoryStats = new RepositoryStats(workingFolder);
 		this.productList = new ProductList(portableRepository, productListArtifactoryUrls);
+		productList.setNegativeCache(negativeCache);
+		productList.setRepositoryStats(repositoryStats);
+		productList.setMetadataCache(new MetadataCache(workingFolder));
+		this.versionsCache = new VersionsCache(workingFolder);
+		productList.setVersionsCache(versionsCache);
 		this.system = Utils.newRepositorySystem();
-		this.depCtx = new HashMap<>();
+		this.depCtx = new ConcurrentHashMap<>();
+		this.sessions = new ConcurrentHashMap<>();
+		this.loaderCache = new ClassLoaderCache(LOADER_CACHE_SIZE);
+		this.apiCompatibility = new ConcurrentHashMap<>();
+		this.productIndex = new ProductIndex(workingFolder);
+		this.blobStore = new BlobStore(workingFolder, productIndex);
+		this.transferLocks = new TransferLocks();
+		this.acquiredLoaders = Collections.synchronizedList(new ArrayList<>());
 	}
 
 	private static Artifact fileSetter(Artifact art, File repository) {
@@ -102,56 +156,56 @@ class Downloader implements IDownloader {
 
 	@Override
 	public void getProductWithDependency(String coords) {
-		Artifact art = new DefaultArtifact(coords);
-		File productFile = getProductFile(art.getGroupId(), art.getArtifactId(), art.getVersion(), art.getExtension(),
-				art.getClassifier());
-		String fileRelativePath = Utils.coordsToRelativeFilePath(art.getGroupId(), art.getArtifactId(),
-				art.getVersion(), art.getExtension(), art.getClassifier());
-		if (productFile.equals(new File(portableRepository, fileRelativePath)))
-			loadProductDependency(portableRepository);
-		else
-			loadProductDependency(workingRepository);
-		if (!product.getDependentProducts().isEmpty()) {
-			for (String dependentCoords : product.getDependentProducts()) {
-				getProductWithDependency(dependentCoords);
-			}
-		}
+		downloadProductTree(coords).values().stream()
+				.map(DownloadResult::getError)
+				.filter(Objects::nonNull)
+				.findFirst()
+				.ifPresent(e -> {
+					throw e;
+				});
+	}
+
+	Map<String, DownloadResult> downloadProductTree(String coords) {
+		return new DownloadCoordinator(this).download(coords);
 	}
 
 	@Override
 	@SneakyThrows
 	public void loadProductDependency(File repository) {
+		loadProductDependency(product, productArtifact, repository);
+	}
+
+	void loadProductDependency(IProduct product, Artifact productArtifact, File repository) {
 		List<Artifact> artifacts = product.getProductStructure().getComponents().stream()
 				.map(IComponent::getArtifactCoords)
 				.collect(Collectors.toList());
-		resolveDependencies(artifacts, repository);
+		resolveDependencies(artifacts, productArtifact, repository);
 	}
 
-	private File downloadProduct(String groupId, String artifactId, String version, String extension, String classifier,
-	                             File productFile) {
-		Collection<String> products = productList.getProducts().values().stream()
-				.map(ProductInfo::getArtifactId)
-				.collect(Collectors.toList());
-		if (!products.contains(groupId + ":" + artifactId))
-			return null;
-		for (ArtifactoryReader repo : productList.getRepos()) {
-			try {
-				if (!repo.getProductVersions(groupId + ":" + artifactId).contains(version)) continue;
-			} catch (Exception e) {
-				continue;
+	private boolean isPublished(Artifact art) {
+		if (productList.getSimpleName(art.getGroupId() + ":" + art.getArtifactId()) == null)
+			return false;
+		try {
+			for (ArtifactoryReader repo : repositoryStats.rank(productList.getRepos(), ArtifactoryReader::toString)) {
+				try {
+					if (repo.getProductVersions(art.getGroupId() + ":" + art.getArtifactId()).contains(art.getVersion()))
+						return true;
+				} catch (Exception e) {
+					log.debug("Can't read versions of " + art.getArtifactId() + " from " + repo + " cause of "
+							+ e.toString());
+				}
 			}
-			List<Artifact> artifacts = resolveDependencies(
-					Collections.singletonList(new DefaultArtifact(groupId, artifactId, classifier, extension, version)),
-					portableRepository);
-			instantiateClassLoader(artifacts);
-			loadProduct(productFile);
-			return productFile;
+			return false;
+		} finally {
+			repositoryStats.save();
+			negativeCache.save();
+			versionsCache.save();
 		}
-		return null;
 	}
 
-	private void instantiateClassLoader(List<Artifact> artifacts) {
-		URL[] urls = artifacts.stream()
+	private URLClassLoader instantiateClassLoader(Artifact productArtifact, List<Artifact> artifacts) {
+		String key = productArtifact.toString();
+		URLClassLoader loader = loaderCache.acquire(key, () -> artifacts.stream()
 				.map(Artifact::getFile)
 				.map(file -> {
 					try {
@@ -160,43 +214,196 @@ class Downloader implements IDownloader {
 						throw new RuntimeException();
 					}
 				})
-				.toArray(URL[]::new);
-		loader = URLClassLoader.newInstance(urls);
+				.toArray(URL[]::new));
+		acquiredLoaders.add(key);
+		return loader;
 	}
 
-	@SneakyThrows
-	private List<Artifact> resolveDependencies(List<Artifact> artifacts, File repository) {
+	void releaseLoaders() {
+		synchronized (acquiredLoaders) {
+			acquiredLoaders.forEach(loaderCache::release);
+			acquiredLoaders.clear();
+		}
+		loader = null;
+	}
+
+	ThreadPoolExecutor getExecutor() {
+		synchronized (executorLock) {
+			if (executor == null)
+				executor = AsyncTasks.newExecutor("scm4j-resolver-%d", resolveThreads);
+			return executor;
+		}
+	}
+
+	void setResolveThreads(int resolveThreads) {
+		synchronized (executorLock) {
+			if (executor != null && resolveThreads > executor.getMaximumPoolSize()) {
+				executor.setMaximumPoolSize(resolveThreads);
+				executor.setCorePoolSize(resolveThreads);
+			} else if (executor != null) {
+				executor.setCorePoolSize(resolveThreads);
+				executor.setMaximumPoolSize(resolveThreads);
+			}
+			this.resolveThreads = resolveThreads;
+		}
+	}
+
+	@Override
+	public void close() {
+		productList.cancelRefresh();
+		acquiredLoaders.clear();
+		loaderCache.close();
+		loader = null;
+		synchronized (executorLock) {
+			if (executor != null) {
+				executor.shutdownNow();
+				executor = null;
+			}
+		}
+	}
+
+	private List<Artifact> resolveDependencies(List<Artifact> artifacts, Artifact productArtifact, File repository) {
 		List<Artifact> components = new ArrayList<>();
-		session = Utils.newRepositorySystemSession(system, repository);
+		DependencyLock lock = DependencyLock.isLockable(productArtifact)
+				? DependencyLock.load(repository, productArtifact)
+				: null;
+		List<List<Artifact>> resolved = new ArrayList<>();
+		List<Artifact> unlocked = new ArrayList<>();
+		for (Artifact artifact : artifacts) {
+			List<Artifact> locked = lock == null ? null : lock.get(artifact);
+			if (locked == null)
+				unlocked.add(artifact);
+			resolved.add(locked);
+		}
+		if (!unlocked.isEmpty()) {
+			List<RemoteRepository> remoteRepos = rankRemoteRepos();
+			RepositorySystemSession session = getSession(repository);
+			Iterator<List<Artifact>> fromRepos;
+			try {
+				fromRepos = resolveArtifacts(session, remoteRepos, unlocked, repository).iterator();
+			} finally {
+				repositoryStats.save();
+				negativeCache.save();
+				productIndex.save();
+			}
+			for (int i = 0; i < artifacts.size(); i++) {
+				if (resolved.get(i) == null) {
+					resolved.set(i, fromRepos.next());
+					if (lock != null)
+						lock.put(artifacts.get(i), resolved.get(i));
+				}
+			}
+			if (lock != null)
+				lock.save();
+		}
+		for (int i = 0; i < artifacts.size(); i++) {
+			Artifact artifact = artifacts.get(i);
+			List<Artifact> deps = resolved.get(i);
+			depCtx.put(artifact.getArtifactId() + artifact.getVersion(), getDeploymentContext(artifact, deps));
+			components.addAll(deps);
+		}
+		return components;
+	}
+
+	private List<RemoteRepository> getRemoteRepos() {
+		synchronized (remoteReposLock) {
+			ProductListEntry entry = productList.getProductListEntry();
+			if (remoteRepos == null || !Objects.equals(entry, sessionsProductListEntry)) {
+				sessions.clear();
+				sessionsProductListEntry = entry;
+				remoteRepos = newRemoteRepos();
+			}
+			return remoteRepos;
+		}
+	}
+
+	private List<RemoteRepository> rankRemoteRepos() {
+		List<RemoteRepository> repos = getRemoteRepos();
+		int localRepos = portableRepository.equals(workingRepository) ? 1 : 2;
+		List<RemoteRepository> ranked = new ArrayList<>(repos.subList(0, localRepos));
+		ranked.addAll(repositoryStats.rank(repos.subList(localRepos, repos.size()), RemoteRepository::getUrl));
+		return ranked;
+	}
+
+	@SneakyThrows
+	private List<RemoteRepository> newRemoteRepos() {
 		List<String> urls = productList.getRepos().stream().map(ArtifactoryReader::toString).collect(Collectors.toList());
 		urls.add(0, portableRepository.toURI().toURL().toString());
 		if (!portableRepository.equals(workingRepository))
 			urls.add(0, workingRepository.toURI().toURL().toString());
-		List<RemoteRepository> remoteRepos = new ArrayList<>();
+		List<RemoteRepository> repos = new ArrayList<>();
 		urls.forEach(url -> {
 			RemoteRepository rep = new RemoteRepository.Builder(url, "default", url)
 					.setPolicy(new RepositoryPolicy(true, RepositoryPolicy.UPDATE_POLICY_DAILY,
 							RepositoryPolicy.CHECKSUM_POLICY_IGNORE))
 					.build();
-			remoteRepos.add(rep);
+			repos.add(rep);
 		});
-		for (Artifact artifact : artifacts) {
-			List<Artifact> deps;
-			try {
-				if (artifact.getExtension().equals("jar"))
-					deps = resolveJar(remoteRepos, artifact, repository);
-				else
-					deps = resolveNotJar(remoteRepos, artifact, repository);
-				depCtx.put(artifact.getArtifactId() + artifact.getVersion(), getDeploymentContext(artifact, deps));
-				components.addAll(deps);
-			} catch (DependencyResolutionException | ArtifactResolutionException e) {
-				throw new RuntimeException(e);
-			}
+		return Collections.unmodifiableList(repos);
+	}
+
+	private RepositorySystemSession getSession(File repository) {
+		RepositorySystemSession session = sessions.computeIfAbsent(repository, this::newSession);
+		if (Thread.currentThread().getPriority() >= Thread.NORM_PRIORITY)
+			return session;
+		DefaultRepositorySystemSession background = new DefaultRepositorySystemSession(session);
+		background.setConfigProperty(CONNECTOR_THREADS, 1);
+		return background;
+	}
+
+	private RepositorySystemSession newSession(File repository) {
+		DefaultRepositorySystemSession session = Utils.newRepositorySystemSession(system, repository);
+		session.setConfigProperty(SegmentedTransporterFactory.CONFIG_PROP_SEGMENTS, downloadSegments);
+		session.setConfigProperty(SegmentedTransporterFactory.CONFIG_PROP_SEGMENT_THRESHOLD, segmentThreshold);
+		session.setConfigProperty(SegmentedTransporterFactory.CONFIG_PROP_NEGATIVE_CACHE, negativeCache);
+		session.setTransferListener(new ChainedTransferListener(session.getTransferListener(),
+				repositoryStats.getTransferListener(), transferLocks));
+		session.setRepositoryListener(ChainedRepositoryListener.newInstance(session.getRepositoryListener(),
+				blobStore.getRepositoryListener()));
+		return session;
+	}
+
+	void setDownloadSegments(int downloadSegments) {
+		this.downloadSegments = downloadSegments;
+		sessions.clear();
+	}
+
+	void setSegmentThreshold(long segmentThreshold) {
+		this.segmentThreshold = segmentThreshold;
+		sessions.clear();
+	}
+
+	private List<List<Artifact>> resolveArtifacts(RepositorySystemSession session, List<RemoteRepository> remoteRepos,
+	                                              List<Artifact> artifacts, File repository) {
+		List<Callable<List<Artifact>>> tasks = artifacts.stream()
+				.map(artifact -> (Callable<List<Artifact>>) () -> resolveArtifact(session, remoteRepos, artifact, repository))
+				.collect(Collectors.toList());
+		List<CompletableFuture<List<Artifact>>> futures = AsyncTasks.submitAll(getExecutor(), tasks);
+		List<List<Artifact>> resolved = new ArrayList<>();
+		try {
+			for (CompletableFuture<List<Artifact>> future : futures)
+				resolved.add(AsyncTasks.getResult(future));
+		} catch (RuntimeException e) {
+			futures.forEach(f -> f.cancel(true));
+			throw e;
+		}
+		return resolved;
+	}
+
+	private List<Artifact> resolveArtifact(RepositorySystemSession session, List<RemoteRepository> remoteRepos,
+	                                       Artifact artifact, File repository) {
+		try {
+			if (artifact.getExtension().equals("jar"))
+				return resolveJar(session, remoteRepos, artifact, repository);
+			else
+				return resolveNotJar(session, remoteRepos, artifact, repository);
+		} catch (DependencyResolutionException | ArtifactResolutionException e) {
+			throw new RuntimeException(e);
 		}
-		return components;
 	}
 
-	private List<Artifact> resolveJar(List<RemoteRepository> repos, Artifact art, File repo) throws DependencyResolutionException {
+	private List<Artifact> resolveJar(RepositorySystemSession session, List<RemoteRepository> repos, Artifact art,
+	                                  File repo) throws DependencyResolutionException {
 		CollectRequest collectRequest = new CollectRequest();
 		collectRequest.setRoot(new Dependency(art, null));
 		collectRequest.setRepositories(repos);
@@ -211,11 +418,14 @@ class Downloader implements IDownloader {
 		return deps;
 	}
 
-	private List<Artifact> resolveNotJar(List<RemoteRepository> repos, Artifact art, File repo) throws ArtifactResolutionException {
+	private List<Artifact> resolveNotJar(RepositorySystemSession session, List<RemoteRepository> repos, Artifact art,
+	                                     File repo) throws ArtifactResolutionException {
 		ArtifactRequest req = new ArtifactRequest();
 		req.setRepositories(repos);
 		req.setArtifact(new SubArtifact(art, "", "pom"));
 		system.resolveArtifact(session, req);
+		if (deltaUpdates)
+			applyDelta(session, repos, art, repo);
 		req.setArtifact(art);
 		ArtifactResult res = system.resolveArtifact(session, req);
 		art = res.getArtifact();
@@ -223,40 +433,165 @@ class Downloader implements IDownloader {
 		return Collections.singletonList(art);
 	}
 
-	@SneakyThrows
-	private File getProductFile(String groupId, String artifactId, String version, String extension, String classifier) {
-		if (productList.getRepos() == null || productList.getProducts() == null) {
+	private void applyDelta(RepositorySystemSession session, List<RemoteRepository> repos, Artifact art, File repo) {
+		File target = fileSetter(art, repo).getFile();
+		String baseVersion = findDeltaBaseVersion(art, repo);
+		if (target.exists() || baseVersion == null)
+			return;
+		Artifact delta = new DefaultArtifact(art.getGroupId(), art.getArtifactId(),
+				DeltaPatch.getClassifier(art.getClassifier(), baseVersion), DeltaPatch.EXTENSION, art.getVersion());
+		ArtifactResult res;
+		try {
+			res = system.resolveArtifact(session, new ArtifactRequest(delta, repos, null));
+		} catch (ArtifactResolutionException e) {
+			log.debug("No delta of " + art + " from " + baseVersion);
+			return;
+		}
+		File patch = res.getArtifact().getFile();
+		File base = fileSetter(art.setVersion(baseVersion), repo).getFile();
+		File tmp = new File(target.getPath() + ".delta.tmp");
+		RemoteRepository repository = res.getRepository() instanceof RemoteRepository
+				? (RemoteRepository) res.getRepository() : null;
+		try {
+			DeltaPatch.apply(base, patch, tmp);
+			String published = readPublishedChecksum(session, repository == null ? repos
+					: Collections.singletonList(repository), art);
+			String rebuilt = BlobStore.getChecksum(tmp);
+			if (!rebuilt.equalsIgnoreCase(published))
+				throw new EDeltaPatch("Checksum " + rebuilt + " of rebuilt " + target.getName()
+						+ " doesn't match published " + published);
+			Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			blobStore.share(target);
+			session.getLocalRepositoryManager().add(session, new LocalArtifactRegistration(art, repository,
+					Collections.singleton("")));
+			log.info(target.getName() + " is rebuilt from " + base.getName() + " and " + patch.getName());
+		} catch (IOException | RuntimeException e) {
+			log.warn("Can't apply " + patch.getName() + " cause of " + e.toString() + ", downloading full artifact");
+		} finally {
+			FileUtils.deleteQuietly(tmp);
+			FileUtils.deleteQuietly(patch);
+		}
+	}
+
+	private String readPublishedChecksum(RepositorySystemSession session, List<RemoteRepository> repos, Artifact art)
+			throws IOException {
+		ArtifactResult res;
+		try {
+			res = system.resolveArtifact(session, new ArtifactRequest(new SubArtifact(art, "*", "*.sha1"), repos,
+					null));
+		} catch (ArtifactResolutionException e) {
+			throw new IOException("No published checksum of " + art, e);
+		}
+		String content = FileUtils.readFileToString(res.getArtifact().getFile(), StandardCharsets.UTF_8).trim();
+		return content.split("\\s+")[0];
+	}
+
+	private static String findDeltaBaseVersion(Artifact art, File repo) {
+		if (art.isSnapshot())
+			return null;
+		File[] versionFolders = new File(repo, Utils.coordsToFolderStructure(art.getGroupId(), art.getArtifactId()))
+				.listFiles(File::isDirectory);
+		if (versionFolders == null)
+			return null;
+		DefaultArtifactVersion version = new DefaultArtifactVersion(art.getVersion());
+		return Arrays.stream(versionFolders)
+				.map(File::getName)
+				.filter(vers -> new DefaultArtifactVersion(vers).compareTo(version) < 0)
+				.filter(vers -> fileSetter(art.setVersion(vers), repo).getFile().exists())
+				.max((v1, v2) -> new DefaultArtifactVersion(v1).compareTo(new DefaultArtifactVersion(v2)))
+				.orElse(null);
+	}
+
+	File getProductFile(String groupId, String artifactId, String version, String extension, String classifier) {
+		LoadedProduct loaded = loadProduct(new DefaultArtifact(groupId, artifactId, classifier, extension, version));
+		productArtifact = loaded.getArtifact();
+		product = loaded.getProduct();
+		loader = loaded.getLoader();
+		return loaded.getFile();
+	}
+
+	LoadedProduct loadProduct(Artifact art) {
+		if (productList.getCatalog() == null) {
 			throw new EProductListEntryNotFound("Product list doesn't loaded");
 		}
-		String fileRelativePath = Utils.coordsToRelativeFilePath(groupId, artifactId, version, extension, classifier);
-		File res = new File(portableRepository, fileRelativePath);
-		if (res.exists()) {
-			List<Artifact> artifacts = resolveDependencies(
-					Collections.singletonList(new DefaultArtifact(groupId, artifactId, classifier, extension, version)),
-					workingRepository);
-			instantiateClassLoader(artifacts);
-			loadProduct(res);
-			res = new File(workingRepository, fileRelativePath);
-		} else {
-			res = downloadProduct(groupId, artifactId, version, extension, classifier, res);
-			if (res == null)
-				throw new EProductNotFound(Utils.coordsToFileName(artifactId, version, extension)
-						+ " is not found in all known repositories");
+		File productFile = fileSetter(art, portableRepository).getFile();
+		boolean portable = productFile.exists();
+		if (!portable && !isPublished(art))
+			throw new EProductNotFound(Utils.coordsToFileName(art.getArtifactId(), art.getVersion(), art.getExtension())
+					+ " is not found in all known repositories");
+		checkApiCompatibility(art, portableRepository);
+		if (portable)
+			linkPortableArtifacts(art);
+		File repository = portable ? workingRepository : portableRepository;
+		List<Artifact> artifacts = resolveDependencies(Collections.singletonList(art), art, repository);
+		URLClassLoader productLoader = instantiateClassLoader(art, artifacts);
+		IProduct loadedProduct = loadProduct(productLoader, productFile);
+		loadedProduct.getProductStructure();
+		return new LoadedProduct(art, loadedProduct, productLoader, fileSetter(art, repository).getFile(), repository);
+	}
+
+	private void linkPortableArtifacts(Artifact productArtifact) {
+		if (portableRepository.equals(workingRepository) || !DependencyLock.isLockable(productArtifact))
+			return;
+		DependencyLock portableLock = DependencyLock.load(portableRepository, productArtifact);
+		DependencyLock workingLock = DependencyLock.load(workingRepository, productArtifact);
+		for (String coords : portableLock.getEntries().keySet()) {
+			Artifact artifact = new DefaultArtifact(coords);
+			List<Artifact> resolved = portableLock.get(artifact);
+			if (resolved == null || workingLock.get(artifact) != null)
+				continue;
+			List<Artifact> linked = new ArrayList<>();
+			for (Artifact art : resolved) {
+				File file = fileSetter(art, workingRepository).getFile();
+				blobStore.link(art.getFile(), file);
+				File pom = fileSetter(new SubArtifact(art, "", "pom"), portableRepository).getFile();
+				if (pom.exists())
+					blobStore.link(pom, fileSetter(new SubArtifact(art, "", "pom"), workingRepository).getFile());
+				linked.add(art.setFile(file));
+			}
+			workingLock.put(artifact, linked);
+		}
+		workingLock.save();
+	}
+
+	private void checkApiCompatibility(Artifact productArtifact, File repository) {
+		String key = productArtifact.toString();
+		Boolean compatible = apiCompatibility.get(key);
+		if (compatible == null) {
+			compatible = isApiCompatible(productIndex.getApiVersion(resolvePom(productArtifact, repository),
+					this::readProductApiVersion));
+			apiCompatibility.put(key, compatible);
+			productIndex.save();
 		}
-		product.getProductStructure();
-		return res;
+		if (!compatible)
+			throw new EIncompatibleApiVersion("Can't load " + Utils.coordsToFileName(productArtifact.getArtifactId(),
+					productArtifact.getVersion(), productArtifact.getExtension()) + " class to classpath");
 	}
 
-	private String readProductApiVersion(File productFile) {
+	private File resolvePom(Artifact productArtifact, File repository) {
+		Artifact pom = fileSetter(new SubArtifact(productArtifact, "", "pom"), repository);
+		if (pom.getFile().exists())
+			return pom.getFile();
+		try {
+			system.resolveArtifact(getSession(repository), new ArtifactRequest(pom, rankRemoteRepos(), null));
+		} catch (ArtifactResolutionException e) {
+			throw new EProductNotFound(pom.getFile().getName() + " pom not found!");
+		} finally {
+			repositoryStats.save();
+			negativeCache.save();
+		}
+		return pom.getFile();
+	}
+
+	private String readProductApiVersion(File pomfile) {
 		MavenXpp3Reader mavenreader = new MavenXpp3Reader();
-		File pomfile = new File(productFile.getParent(), productFile.getName().replace("jar", "pom"));
 		Model model;
 		try {
 			@Cleanup
 			FileReader reader = new FileReader(pomfile);
 			model = mavenreader.read(reader);
 		} catch (Exception e) {
-			throw new EProductNotFound(productFile.getName() + " pom not found!");
+			throw new EProductNotFound(pomfile.getName() + " pom not found!");
 		}
 		Optional<org.apache.maven.model.Dependency> apiDep = model.getDependencies().stream()
 				.filter(dep -> dep.getArtifactId().equals(API_NAME))
@@ -269,12 +604,23 @@ class Downloader implements IDownloader {
 		return productApiVersion;
 	}
 
+	private boolean isApiCompatible(String productApiVersion) {
+		Optional<String> deployerApiVersion = Optional.ofNullable(readDeployerApiVersion());
+		return productApiVersion.endsWith("SNAPSHOT") || !deployerApiVersion.isPresent() ||
+				deployerApiVersion.get().endsWith("SNAPSHOT") ||
+				compareApiVersions(deployerApiVersion.get(), productApiVersion);
+	}
+
+	String readDeployerApiVersion() {
+		return DEPLOYER_API_VERSION.get();
+	}
+
 	@SneakyThrows
-	private String readDeployerApiVersion() {
+	private static String loadDeployerApiVersion() {
 		String resourceName = Downloader.class.getPackage().getName().replace('.', '/') + "/"
 				+ API_NAME + "-version";
 		@Cleanup
-		InputStream is = getClass().getClassLoader().getResourceAsStream(resourceName);
+		InputStream is = Downloader.class.getClassLoader().getResourceAsStream(resourceName);
 		if (is == null)
 			return null;
 		else
@@ -282,24 +628,15 @@ class Downloader implements IDownloader {
 	}
 
 	@SneakyThrows
-	private void loadProduct(File productFile) {
-		String productApiVersion = readProductApiVersion(productFile);
-		Optional<String> deployerApiVersion = Optional.ofNullable(readDeployerApiVersion());
-		if (productApiVersion.endsWith("SNAPSHOT") || !deployerApiVersion.isPresent() ||
-				deployerApiVersion.get().endsWith("SNAPSHOT") ||
-				compareApiVersions(deployerApiVersion.get(), productApiVersion)) {
-			String mainClassName = Utils.getExportedClassName(productFile);
-			Object obj;
-			obj = loader.loadClass(mainClassName).getConstructor().newInstance();
-			if (obj instanceof IProduct)
-				product = (IProduct) obj;
-			else
-				throw new RuntimeException("Current product doesn't implement IProduct");
-		} else {
-			if (loader != null)
-				loader.close();
-			throw new EIncompatibleApiVersion("Can't load " + productFile.getName() + " class to classpath");
-		}
+	private IProduct loadProduct(URLClassLoader loader, File productFile) {
+		String mainClassName = productIndex.getMainClass(productFile);
+		Object obj = loader.loadClass(mainClassName).getConstructor().newInstance();
+		if (!(obj instanceof IProduct))
+			throw new RuntimeException("Current product doesn't implement IProduct");
+		IProduct product = (IProduct) obj;
+		productIndex.putDependentProducts(productFile, product.getDependentProducts());
+		productIndex.save();
+		return product;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -307,4 +644,13 @@ class Downloader implements IDownloader {
 	public <T extends IDeploymentContext> T getContextByArtifactIdAndVersion(String artifactId, String version) {
 		return (T) depCtx.get(artifactId + version);
 	}
+
+	@Data
+	static class LoadedProduct {
+		private final Artifact artifact;
+		private final IProduct product;
+		private final URLClassLoader loader;
+		private final File file;
+		private final File repository;
+	}
 }
@@ -0,0 +1,38 @@
+package org.scm4j.deployer.engine;
+
+import lombok.Data;
+
+import java.io.File;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+class JsonFileCache<V> {
+
+	private final File file;
+	private final Type type;
+	private Map<String, V> content = Collections.emptyMap();
+	private long length = -1;
+	private long lastModified = -1;
+
+	synchronized Map<String, V> read() {
+		long currentLength = file.length();
+		long currentLastModified = file.lastModified();
+		if (currentLength != length || currentLastModified != lastModified) {
+			Map<String, V> stored = Utils.readJson(file, type);
+			content = stored == null ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(stored));
+			length = currentLength;
+			lastModified = currentLastModified;
+		}
+		return content;
+	}
+
+	synchronized void write(Map<String, V> map) {
+		PersistedJson.write(map, file);
+		content = Collections.unmodifiableMap(new HashMap<>(map));
+		length = file.length();
+		lastModified = file.lastModified();
+	}
+}
@@ -0,0 +1,69 @@
+package org.scm4j.deployer.engine;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.reflect.TypeToken;
+import lombok.Data;
+import lombok.SneakyThrows;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+@Data
+public class MetadataCache {
+
+	public static final String CACHE_FOLDER_NAME = "metadata-cache";
+	static final String INDEX_FILE_NAME = "index.json";
+	private static final Type INDEX_TYPE = new TypeToken<Map<String, Entry>>() {
+	}.getType();
+	private final File cacheFolder;
+	private final File indexFile;
+	private final Map<String, Entry> entries;
+
+	public MetadataCache(File workingFolder) {
+		this.cacheFolder = new File(workingFolder, CACHE_FOLDER_NAME);
+		this.indexFile = new File(cacheFolder, INDEX_FILE_NAME);
+		this.entries = PersistedJson.read(indexFile, INDEX_TYPE);
+	}
+
+	public synchronized Entry get(String url) {
+		Entry entry = entries.get(url);
+		return entry != null && getContentFile(url).exists() ? entry : null;
+	}
+
+	public File getContentFile(String url) {
+		return new File(cacheFolder, Hashing.sha1().hashString(url, StandardCharsets.UTF_8).toString());
+	}
+
+	@SneakyThrows
+	public synchronized void put(String url, String etag, String lastModified, byte[] content) {
+		File contentFile = getContentFile(url);
+		if (etag == null && lastModified == null) {
+			if (entries.remove(url) != null) {
+				contentFile.delete();
+				PersistedJson.write(entries, indexFile);
+			}
+			return;
+		}
+		cacheFolder.mkdirs();
+		File tmp = File.createTempFile(contentFile.getName(), ".tmp", cacheFolder);
+		FileUtils.writeByteArrayToFile(tmp, content);
+		Files.move(tmp.toPath(), contentFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		Entry entry = new Entry();
+		entry.setEtag(etag);
+		entry.setLastModified(lastModified);
+		entries.put(url, entry);
+		PersistedJson.write(entries, indexFile);
+	}
+
+	@Data
+	public static class Entry {
+		private String etag;
+		private String lastModified;
+	}
+}
@@ -0,0 +1,65 @@
+package org.scm4j.deployer.engine;
+
+import com.google.gson.reflect.TypeToken;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.File;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@Setter
+public class NegativeCache extends PersistedJson<Long> {
+
+	public static final String CACHE_FILE_NAME = "negative-cache.json";
+	public static final long DEFAULT_TTL_MILLIS = TimeUnit.HOURS.toMillis(1);
+	private static final Type CACHE_TYPE = new TypeToken<Map<String, Long>>() {
+	}.getType();
+	private long ttlMillis = DEFAULT_TTL_MILLIS;
+
+	public NegativeCache(File workingFolder) {
+		super(new File(workingFolder, CACHE_FILE_NAME), CACHE_TYPE);
+	}
+
+	Map<String, Long> getExpirations() {
+		return getEntries();
+	}
+
+	public synchronized boolean isMissing(String url) {
+		Long expiration = getEntries().get(url);
+		if (expiration == null)
+			return false;
+		if (expiration > System.currentTimeMillis())
+			return true;
+		getEntries().remove(url);
+		markChanged();
+		return false;
+	}
+
+	public synchronized void putMissing(String url) {
+		if (ttlMillis <= 0)
+			return;
+		getEntries().put(url, System.currentTimeMillis() + ttlMillis);
+		markChanged();
+	}
+
+	public synchronized void invalidate(String url) {
+		if (getEntries().remove(url) != null)
+			markChanged();
+	}
+
+	public synchronized void invalidate() {
+		if (!getEntries().isEmpty()) {
+			getEntries().clear();
+			markChanged();
+		}
+	}
+
+	@Override
+	void prune() {
+		long now = System.currentTimeMillis();
+		getEntries().values().removeIf(expiration -> expiration <= now);
+	}
+}
@@ -0,0 +1,66 @@
+package org.scm4j.deployer.engine;
+
+import com.google.gson.JsonParseException;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Getter
+@Slf4j
+abstract class PersistedJson<V> {
+
+	private final File file;
+	private final Map<String, V> entries;
+	private boolean changed;
+
+	PersistedJson(File file, Type type) {
+		this.file = file;
+		this.entries = read(file, type);
+	}
+
+	static <V> Map<String, V> read(File file, Type type) {
+		Map<String, V> stored = null;
+		try {
+			stored = Utils.readJson(file, type);
+		} catch (JsonParseException e) {
+			log.warn("Can't read " + file.getPath() + ", it will be rewritten");
+		}
+		return stored == null ? new TreeMap<>() : new TreeMap<>(stored);
+	}
+
+	@SneakyThrows
+	static void write(Object content, File file) {
+		file.getParentFile().mkdirs();
+		File tmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+		try {
+			Utils.writeJson(content, tmp);
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			FileUtils.deleteQuietly(tmp);
+		}
+	}
+
+	synchronized void markChanged() {
+		changed = true;
+	}
+
+	void prune() {
+	}
+
+	synchronized void save() {
+		if (!changed)
+			return;
+		prune();
+		write(entries, file);
+		changed = false;
+	}
+}
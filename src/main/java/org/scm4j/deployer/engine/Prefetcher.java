@@ -0,0 +1,96 @@
+package org.scm4j.deployer.engine;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Data;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.aether.artifact.Artifact;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Data
+@Slf4j
+class Prefetcher implements Closeable {
+
+	private final Downloader downloader;
+	private final Deployer deployer;
+	private ScheduledExecutorService scheduler;
+
+	Prefetcher(Downloader downloader, Deployer deployer) {
+		this.downloader = downloader;
+		this.deployer = deployer;
+	}
+
+	@SneakyThrows
+	Map<String, String> prefetch() {
+		Thread thread = Thread.currentThread();
+		int priority = thread.getPriority();
+		thread.setPriority(Thread.MIN_PRIORITY);
+		try {
+			return prefetchNewestVersions();
+		} finally {
+			thread.setPriority(priority);
+		}
+	}
+
+	private Map<String, String> prefetchNewestVersions() throws Exception {
+		Map<String, String> prefetched = new HashMap<>();
+		downloader.getProductList().readFromProductList();
+		for (ProductDescription desc : deployer.listDeployedProducts().values()) {
+			String simpleName = desc.getProductName();
+			String deployedVersion = desc.getProductVersion();
+			if (deployedVersion == null || deployedVersion.isEmpty())
+				continue;
+			String version = downloader.getProductList().getProductVersions(simpleName)
+					.getNewestAppliedNewerThan(deployedVersion);
+			if (version == null)
+				continue;
+			synchronized (downloader) {
+				try {
+					Artifact artifact = Utils.initializeArtifact(downloader, simpleName, version);
+					log.info("Prefetching " + simpleName + "-" + version);
+					downloader.getProductWithDependency(artifact.toString());
+					prefetched.put(simpleName, version);
+				} catch (RuntimeException e) {
+					log.warn("Can't prefetch " + simpleName + "-" + version + " cause of " + e.toString());
+				} finally {
+					downloader.releaseLoaders();
+				}
+			}
+		}
+		return prefetched;
+	}
+
+	synchronized void schedule(long initialDelay, long period, TimeUnit unit) {
+		cancel();
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+				.setNameFormat("scm4j-prefetch-%d")
+				.setDaemon(true)
+				.setPriority(Thread.MIN_PRIORITY)
+				.build());
+		scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				prefetch();
+			} catch (Exception e) {
+				log.warn("Prefetch failed cause of " + e.toString());
+			}
+		}, initialDelay, period, unit);
+	}
+
+	synchronized void cancel() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	@Override
+	public void close() {
+		cancel();
+	}
+}
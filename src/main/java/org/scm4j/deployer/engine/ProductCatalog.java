@@ -0,0 +1,57 @@
+package org.scm4j.deployer.engine;
+
+import lombok.Data;
+import org.scm4j.deployer.api.ProductInfo;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+class ProductCatalog {
+
+	private final long version;
+	private final String releaseVersion;
+	private final File productListFile;
+	private final File metadataFile;
+	private final ProductListEntry entry;
+	private final Map<String, ProductInfo> products;
+	private final List<ArtifactoryReader> repos;
+	private final long productListLastModified;
+	private final long productListLength;
+	private final long metadataLastModified;
+	private final Map<String, String> simpleNames;
+
+	ProductCatalog(long version, String releaseVersion, File productListFile, File metadataFile,
+	               ProductListEntry entry, Map<String, ProductInfo> products, List<ArtifactoryReader> repos) {
+		this.version = version;
+		this.releaseVersion = releaseVersion;
+		this.productListFile = productListFile;
+		this.metadataFile = metadataFile;
+		this.entry = entry;
+		this.products = products;
+		this.repos = repos;
+		this.productListLastModified = productListFile.lastModified();
+		this.productListLength = productListFile.length();
+		this.metadataLastModified = metadataFile.lastModified();
+		Map<String, String> index = new HashMap<>();
+		products.forEach((simpleName, info) -> index.putIfAbsent(info.getArtifactId(), simpleName));
+		this.simpleNames = Collections.unmodifiableMap(index);
+	}
+
+	String getSimpleName(String groupIdAndArtifactId) {
+		return simpleNames.get(groupIdAndArtifactId);
+	}
+
+	String getGroupIdAndArtifactId(String simpleName) {
+		ProductInfo info = products.get(simpleName);
+		return info == null ? null : info.getArtifactId();
+	}
+
+	boolean isModified() {
+		return productListFile.lastModified() != productListLastModified || productListFile.length() != productListLength
+				|| metadataFile.lastModified() != metadataLastModified;
+	}
+}
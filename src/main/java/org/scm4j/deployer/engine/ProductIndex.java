@@ -0,0 +1,98 @@
+package org.scm4j.deployer.engine;
+
+import com.google.gson.reflect.TypeToken;
+import lombok.Data;
+
+import java.io.File;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+class ProductIndex extends PersistedJson<ProductIndex.Entry> {
+
+	static final String INDEX_FILE_NAME = "product-index.json";
+	private static final Type INDEX_TYPE = new TypeToken<Map<String, Entry>>() {
+	}.getType();
+
+	ProductIndex(File workingFolder) {
+		super(new File(workingFolder, INDEX_FILE_NAME), INDEX_TYPE);
+	}
+
+	synchronized String getMainClass(File productFile) {
+		Entry entry = getEntry(productFile);
+		if (entry.getMainClass() == null) {
+			entry.setMainClass(Utils.getExportedClassName(productFile));
+			markChanged();
+		}
+		return entry.getMainClass();
+	}
+
+	synchronized String getApiVersion(File pomFile, Function<File, String> reader) {
+		Entry entry = getEntry(pomFile);
+		if (entry.getApiVersion() == null) {
+			entry.setApiVersion(reader.apply(pomFile));
+			markChanged();
+		}
+		return entry.getApiVersion();
+	}
+
+	synchronized String getChecksum(File file, Function<File, String> hasher) {
+		Entry entry = getEntry(file);
+		if (entry.getChecksum() == null) {
+			entry.setChecksum(hasher.apply(file));
+			markChanged();
+		}
+		return entry.getChecksum();
+	}
+
+	synchronized void putChecksum(File file, String checksum) {
+		Entry entry = getEntry(file);
+		if (!checksum.equals(entry.getChecksum())) {
+			entry.setChecksum(checksum);
+			markChanged();
+		}
+	}
+
+	synchronized List<String> getDependentProducts(File productFile) {
+		List<String> dependents = getEntry(productFile).getDependentProducts();
+		return dependents == null ? null : new ArrayList<>(dependents);
+	}
+
+	synchronized void putDependentProducts(File productFile, List<String> dependents) {
+		Entry entry = getEntry(productFile);
+		if (!new ArrayList<>(dependents).equals(entry.getDependentProducts())) {
+			entry.setDependentProducts(new ArrayList<>(dependents));
+			markChanged();
+		}
+	}
+
+	private Entry getEntry(File file) {
+		String key = file.getAbsolutePath();
+		Entry entry = getEntries().get(key);
+		if (entry == null || entry.getLength() != file.length() || entry.getLastModified() != file.lastModified()) {
+			entry = new Entry();
+			entry.setLength(file.length());
+			entry.setLastModified(file.lastModified());
+			getEntries().put(key, entry);
+			markChanged();
+		}
+		return entry;
+	}
+
+	@Override
+	void prune() {
+		getEntries().keySet().removeIf(path -> !new File(path).exists());
+	}
+
+	@Data
+	static class Entry {
+		private long length;
+		private long lastModified;
+		private String mainClass;
+		private String apiVersion;
+		private String checksum;
+		private List<String> dependentProducts;
+	}
+}
@@ -1,10 +1,14 @@
 package org.scm4j.deployer.engine;
 
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
 import lombok.Cleanup;
 import lombok.Data;
 import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.apache.maven.artifact.repository.metadata.Metadata;
 import org.apache.maven.artifact.repository.metadata.Versioning;
@@ -19,142 +23,437 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Type;
-import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Data
+@Slf4j
 class ProductList {
 
 	public static final String PRODUCT_LIST_GROUP_ID = "org.scm4j.ai";
 	public static final String PRODUCT_LIST_ARTIFACT_ID = "product-list";
 	public static final String VERSIONS_ARTIFACT_ID = "products-versions.json";
+	public static final String VERSIONS_MANIFEST_ARTIFACT_ID = "products-versions";
+	public static final String VERSIONS_MANIFEST_EXTENSION = ".json.gz";
+	public static final String VERSIONS_STATE_FILE_NAME = "products-versions-state.json";
+	private static final Type VERSIONS_STATE_TYPE = new TypeToken<Map<String, VersionsState>>() {
+	}.getType();
+	static final int DEFAULT_REFRESH_THREADS = 8;
+	static final long DEFAULT_REQUEST_TIMEOUT_MILLIS = 60000;
 	private final String[] productListArtifactoryUrls;
 	private final File localRepo;
-	private ArtifactoryReader productListReader;
-	private List<ArtifactoryReader> repos;
-	private Map<String, ProductInfo> products;
-	private File localProductList;
-	private File versionsJson;
-	private ProductListEntry productListEntry;
-	private Map<String, Map<String, Boolean>> productsVersions;
+	private final JsonFileCache<Map<String, Boolean>> productsVersionsCache;
+	private final JsonFileCache<VersionsState> versionsStateCache;
+	private final AtomicReference<ProductCatalog> catalog = new AtomicReference<>();
+	private final AtomicLong catalogVersions = new AtomicLong();
+	private volatile File versionsJson;
 	private Type versionsJsonType;
+	private NegativeCache negativeCache;
+	private MetadataCache metadataCache;
+	private VersionsCache versionsCache;
+	private RepositoryStats repositoryStats;
+	private int refreshThreads = DEFAULT_REFRESH_THREADS;
+	private long requestTimeoutMillis = DEFAULT_REQUEST_TIMEOUT_MILLIS;
+	private ThreadPoolExecutor executor;
+	private volatile Map<String, RuntimeException> versionsErrors = new LinkedHashMap<>();
+	private ScheduledExecutorService scheduler;
+	private volatile boolean refreshScheduled;
+	private final Object versionsRefreshLock = new Object();
+	private final Object versionsIndexLock = new Object();
+	private Map<String, Map<String, Boolean>> indexedVersions;
+	private Map<String, ProductVersions> versionsIndex = new HashMap<>();
 
 	ProductList(File localRepo, String... productListArtifactoryUrls) {
 		this.localRepo = localRepo;
 		this.productListArtifactoryUrls = productListArtifactoryUrls;
 		this.versionsJsonType = new TypeToken<Map<String, Map<String, Boolean>>>() {
 		}.getType();
+		this.productsVersionsCache = new JsonFileCache<>(new File(localRepo, VERSIONS_ARTIFACT_ID), versionsJsonType);
+		this.versionsStateCache = new JsonFileCache<>(new File(localRepo, VERSIONS_STATE_FILE_NAME),
+				VERSIONS_STATE_TYPE);
+	}
+
+	synchronized ThreadPoolExecutor getExecutor() {
+		if (executor == null)
+			executor = AsyncTasks.newExecutor("scm4j-versions-%d", refreshThreads);
+		return executor;
+	}
+
+	synchronized void setRefreshThreads(int refreshThreads) {
+		if (executor != null && refreshThreads > executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(refreshThreads);
+			executor.setCorePoolSize(refreshThreads);
+		} else if (executor != null) {
+			executor.setCorePoolSize(refreshThreads);
+			executor.setMaximumPoolSize(refreshThreads);
+		}
+		this.refreshThreads = refreshThreads;
+	}
+
+	private ArtifactoryReader newReader(String url) {
+		ArtifactoryReader reader = ArtifactoryReader.getByUrl(url);
+		reader.setNegativeCache(negativeCache);
+		reader.setMetadataCache(metadataCache);
+		reader.setVersionsCache(versionsCache);
+		reader.setRepositoryStats(repositoryStats);
+		reader.setExecutor(getExecutor());
+		reader.setAsyncTimeoutMillis(requestTimeoutMillis);
+		return reader;
+	}
+
+	ProductCatalog getCatalog() {
+		return catalog.get();
+	}
+
+	Map<String, ProductInfo> getProducts() {
+		ProductCatalog current = catalog.get();
+		return current == null ? null : current.getProducts();
+	}
+
+	List<ArtifactoryReader> getRepos() {
+		ProductCatalog current = catalog.get();
+		return current == null ? null : current.getRepos();
+	}
+
+	ProductListEntry getProductListEntry() {
+		ProductCatalog current = catalog.get();
+		return current == null ? null : current.getEntry();
+	}
+
+	String getSimpleName(String groupIdAndArtifactId) {
+		ProductCatalog current = catalog.get();
+		return current == null ? null : current.getSimpleName(groupIdAndArtifactId);
+	}
+
+	File getLocalProductList() {
+		ProductCatalog current = catalog.get();
+		return current == null ? null : current.getProductListFile();
 	}
 
 	ProductListEntry readFromProductList() throws Exception {
-		String productListReleaseVersion = getLocalProductListReleaseVersion();
-		if (productListReleaseVersion == null) {
-			downloadProductList();
-			loadProductListEntry();
-			downloadProductsVersions();
-		} else {
-			localProductList = new File(localRepo, Utils.coordsToRelativeFilePath(PRODUCT_LIST_GROUP_ID,
-					PRODUCT_LIST_ARTIFACT_ID, productListReleaseVersion, ".json", null));
-			versionsJson = new File(localRepo, VERSIONS_ARTIFACT_ID);
-			loadProductListEntry();
+		ProductCatalog current = catalog.get();
+		if (current != null && (refreshScheduled || !current.isModified()))
+			return current.getEntry();
+		synchronized (this) {
+			current = catalog.get();
+			if (current != null && !current.isModified())
+				return current.getEntry();
+			String productListReleaseVersion = getLocalProductListReleaseVersion();
+			if (productListReleaseVersion == null) {
+				downloadProductList();
+				downloadProductsVersions();
+			} else {
+				File localProductList = new File(localRepo, Utils.coordsToRelativeFilePath(PRODUCT_LIST_GROUP_ID,
+						PRODUCT_LIST_ARTIFACT_ID, productListReleaseVersion, ".json", null));
+				install(newCatalog(productListReleaseVersion, localProductList, loadProductListEntry(localProductList)));
+			}
+			return catalog.get().getEntry();
 		}
-		return productListEntry;
 	}
 
-	void downloadProductList() {
+	synchronized void downloadProductList() {
 		String productListReleaseVersion = null;
 		String productListPath = null;
 		InputStream in = null;
+		List<ArtifactoryReader> readers = new ArrayList<>();
+		List<CompletableFuture<String>> releaseVersions = new ArrayList<>();
 		for (String productListArtifactoryUrl : productListArtifactoryUrls) {
 			try {
-				ArtifactoryReader productListReader = ArtifactoryReader.getByUrl(productListArtifactoryUrl);
-				productListReleaseVersion = productListReader.getProductListReleaseVersion();
-				productListPath = Utils.coordsToRelativeFilePath(PRODUCT_LIST_GROUP_ID, PRODUCT_LIST_ARTIFACT_ID,
-						productListReleaseVersion, ".json", null);
-				URL remoteProductListUrl = new URL(productListReader.getUrl(), productListPath.replace('\\', '/'));
-				in = remoteProductListUrl.openStream();
-			} catch (IOException e) {
-				continue;
+				ArtifactoryReader reader = newReader(productListArtifactoryUrl);
+				releaseVersions.add(reader.getProductListReleaseVersionAsync());
+				readers.add(reader);
+			} catch (Exception e) {
+				log.warn("Can't read product list from " + productListArtifactoryUrl + " cause of " + e.toString());
+			}
+		}
+		try {
+			for (int i = 0; i < readers.size(); i++) {
+				try {
+					productListReleaseVersion = AsyncTasks.getResult(releaseVersions.get(i));
+					productListPath = Utils.coordsToRelativeFilePath(PRODUCT_LIST_GROUP_ID, PRODUCT_LIST_ARTIFACT_ID,
+							productListReleaseVersion, ".json", null);
+					in = AsyncTasks.getResult(readers.get(i).getProductListAsync(productListReleaseVersion));
+				} catch (RuntimeException e) {
+					continue;
+				}
+				break;
 			}
-			break;
+		} finally {
+			releaseVersions.forEach(future -> future.cancel(true));
 		}
 		if (productListReleaseVersion == null || in == null) {
 			throw new EProductListEntryNotFound("Can't find product list entry!");
 		}
-		localProductList = new File(localRepo, productListPath);
+		File localProductList = new File(localRepo, productListPath);
+		File downloaded = new File(localProductList.getParentFile(), localProductList.getName() + ".part");
+		ProductListEntry entry;
 		try {
-			if (!localProductList.exists()) {
-				localProductList.getParentFile().mkdirs();
-				localProductList.createNewFile();
-			}
-			FileUtils.copyInputStreamToFile(in, localProductList);
+			FileUtils.copyInputStreamToFile(in, downloaded);
+			entry = loadProductListEntry(downloaded);
+			Files.move(downloaded.toPath(), localProductList.toPath(), StandardCopyOption.REPLACE_EXISTING);
 		} catch (IOException e) {
 			throw new RuntimeException(e);
+		} finally {
+			FileUtils.deleteQuietly(downloaded);
 		}
+		if (versionsCache != null)
+			versionsCache.invalidate();
 		writeProductListMetadata(productListReleaseVersion);
+		install(newCatalog(productListReleaseVersion, localProductList, entry));
 	}
 
-	private void loadProductListEntry() {
+	private static ProductListEntry loadProductListEntry(File productList) {
+		ProductListEntry entry;
 		try {
-			productListEntry = new Gson().fromJson(FileUtils.readFileToString(localProductList, "UTF-8"),
-					ProductListEntry.class);
-		} catch (IOException e) {
+			entry = new Gson().fromJson(FileUtils.readFileToString(productList, "UTF-8"), ProductListEntry.class);
+		} catch (IOException | JsonParseException e) {
 			throw new EProductListEntryNotFound(e);
 		}
-		repos = new ArrayList<>();
-		productListEntry.getRepositories().forEach(name -> repos.add(ArtifactoryReader.getByUrl(name)));
-		products = new HashMap<>();
-		Map<String, ProductInfo> fromEntry = productListEntry.getProducts();
-		products.putAll(fromEntry);
+		if (entry == null || entry.getRepositories() == null || entry.getProducts() == null
+				|| entry.getProducts().values().stream().anyMatch(info -> info == null || info.getArtifactId() == null))
+			throw new EProductListEntryNotFound("Invalid product list " + productList.getPath());
+		return entry;
 	}
 
-	void downloadProductsVersions() throws IOException {
+	private ProductCatalog newCatalog(String releaseVersion, File productList, ProductListEntry entry) {
+		List<ArtifactoryReader> repos = new ArrayList<>();
+		entry.getRepositories().forEach(name -> repos.add(newReader(name)));
+		return new ProductCatalog(catalogVersions.incrementAndGet(), releaseVersion, productList,
+				new File(getProductListMetadataFolder(), ArtifactoryReader.METADATA_FILE_NAME), entry,
+				Collections.unmodifiableMap(new HashMap<>(entry.getProducts())), Collections.unmodifiableList(repos));
+	}
+
+	private void install(ProductCatalog newCatalog) {
 		versionsJson = new File(localRepo, VERSIONS_ARTIFACT_ID);
-		productsVersions = new HashMap<>();
-		for (Map.Entry<String, ProductInfo> product : products.entrySet()) {
-			String appliedVersionsContent = Utils.readStringFromUrl(product.getValue().getAppliedVersionsUrl());
-			Map<String, Boolean> appliedVersions = new HashMap<>();
-			Set<String> versionsFromUrl = Arrays.stream(appliedVersionsContent.split("\n"))
-					.filter(s -> !s.startsWith("#"))
-					.filter(s -> !s.isEmpty())
-					.collect(Collectors.toSet());
-			for (ArtifactoryReader reader : repos) {
-				for (String vers : reader.getProductVersions(product.getValue().getArtifactId())) {
-					appliedVersions.put(vers, false);
+		catalog.set(newCatalog);
+	}
+
+	void refresh() {
+		if (negativeCache != null)
+			negativeCache.invalidate();
+		if (versionsCache != null)
+			versionsCache.invalidate();
+		downloadProductList();
+	}
+
+	synchronized void scheduleRefresh(long initialDelay, long period, TimeUnit unit) {
+		cancelRefresh();
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+				.setNameFormat("scm4j-product-list-%d")
+				.setDaemon(true)
+				.build());
+		scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				refresh();
+			} catch (Exception e) {
+				log.warn("Product list refresh failed cause of " + e.toString());
+			}
+		}, initialDelay, period, unit);
+		refreshScheduled = true;
+	}
+
+	synchronized void cancelRefresh() {
+		refreshScheduled = false;
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	void downloadProductsVersions() {
+		ProductCatalog current = catalog.get();
+		refreshProductsVersions(current, current.getProducts().keySet());
+	}
+
+	void downloadProductVersions(String simpleName) {
+		ProductCatalog current = catalog.get();
+		refreshProductsVersions(current, current.getProducts().containsKey(simpleName)
+				? Collections.singleton(simpleName) : Collections.emptySet());
+	}
+
+	private void refreshProductsVersions(ProductCatalog current, Collection<String> refreshed) {
+		Map<String, ProductInfo> products = current.getProducts();
+		versionsJson = new File(localRepo, VERSIONS_ARTIFACT_ID);
+		Map<String, Map<String, Boolean>> manifestVersions = new HashMap<>();
+		Map<String, RuntimeException> errors = new LinkedHashMap<>();
+		Map<String, Map<String, Boolean>> manifest = refreshed.isEmpty() ? null : readVersionsManifest(current);
+		Collection<String> crawled = refreshed;
+		if (manifest != null) {
+			crawled = new ArrayList<>();
+			for (String product : refreshed) {
+				Map<String, Boolean> versions = manifest.get(product);
+				if (versions == null)
+					crawled.add(product);
+				else
+					manifestVersions.put(product, new HashMap<>(versions));
+			}
+		}
+		Map<String, CompletableFuture<String>> appliedVersionsFutures = new LinkedHashMap<>();
+		Map<String, Map<String, CompletableFuture<ProductMetadata>>> metadataFutures = new LinkedHashMap<>();
+		for (String product : crawled) {
+			ProductInfo info = products.get(product);
+			appliedVersionsFutures.put(product, AsyncTasks.submit(getExecutor(), () -> ArtifactoryReader
+					.readAppliedVersions(info.getAppliedVersionsUrl(), metadataCache), requestTimeoutMillis));
+			Map<String, CompletableFuture<ProductMetadata>> futures = new LinkedHashMap<>();
+			for (ArtifactoryReader reader : current.getRepos())
+				futures.put(reader.toString(), reader.getProductMetadataAsync(info.getArtifactId()));
+			metadataFutures.put(product, futures);
+		}
+		Map<String, String> appliedVersionsContents = new HashMap<>();
+		Map<String, Set<String>> crawledVersions = new HashMap<>();
+		Map<String, VersionsState> states = new HashMap<>();
+		for (String product : crawled) {
+			RuntimeException error = null;
+			String appliedVersionsContent = "";
+			try {
+				appliedVersionsContent = AsyncTasks.getResult(appliedVersionsFutures.get(product));
+			} catch (RuntimeException e) {
+				error = e;
+			}
+			VersionsState state = new VersionsState();
+			state.setAppliedVersions(Hashing.sha1().hashString(appliedVersionsContent, StandardCharsets.UTF_8)
+					.toString());
+			Set<String> versions = new HashSet<>();
+			for (Map.Entry<String, CompletableFuture<ProductMetadata>> future : metadataFutures.get(product).entrySet()) {
+				try {
+					ProductMetadata metadata = AsyncTasks.getResult(future.getValue());
+					versions.addAll(metadata.getVersions());
+					state.getRepositories().put(future.getKey(), metadata.getStamp());
+				} catch (RuntimeException e) {
+					error = error == null ? e : error;
 				}
 			}
-			appliedVersions = appliedVersions.entrySet().stream()
-					.peek(e -> {
-						if (versionsFromUrl.contains(e.getKey()) || appliedVersionsContent.isEmpty()) {
-							e.setValue(true);
-						}
-					})
-					.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-			productsVersions.put(product.getKey(), appliedVersions);
+			if (error != null) {
+				log.warn("Can't refresh versions of " + product + " cause of " + error.toString());
+				errors.put(product, error);
+			} else {
+				appliedVersionsContents.put(product, appliedVersionsContent);
+				crawledVersions.put(product, versions);
+				states.put(product, state);
+			}
+		}
+		if (negativeCache != null)
+			negativeCache.save();
+		if (versionsCache != null)
+			versionsCache.save();
+		if (repositoryStats != null)
+			repositoryStats.save();
+		synchronized (versionsRefreshLock) {
+			Map<String, Map<String, Boolean>> storedVersions = readStored(productsVersionsCache);
+			Map<String, VersionsState> storedStates = readStored(versionsStateCache);
+			Map<String, Map<String, Boolean>> mergedVersions = new HashMap<>(storedVersions);
+			Map<String, VersionsState> mergedStates = new HashMap<>(storedStates);
+			mergedVersions.keySet().retainAll(products.keySet());
+			mergedStates.keySet().retainAll(products.keySet());
+			mergedVersions.putAll(manifestVersions);
+			mergedStates.keySet().removeAll(manifestVersions.keySet());
+			states.forEach((product, state) -> {
+				if (isUnchanged(state, storedStates.get(product), storedVersions.get(product)))
+					return;
+				Map<String, Boolean> appliedVersions = getAppliedVersions(appliedVersionsContents.get(product),
+						crawledVersions.get(product));
+				state.setResult(getChecksum(appliedVersions));
+				mergedVersions.put(product, appliedVersions);
+				mergedStates.put(product, state);
+			});
+			if (!mergedVersions.equals(storedVersions) || !versionsJson.exists())
+				productsVersionsCache.write(mergedVersions);
+			if (!mergedStates.equals(storedStates) || !versionsStateCache.getFile().exists())
+				versionsStateCache.write(mergedStates);
+			versionsErrors = errors;
 		}
-		Utils.writeJson(productsVersions, versionsJson);
 	}
 
-	@SneakyThrows
-	Map<String, Boolean> readProductVersions(String artifactId) {
+	private static <V> Map<String, V> readStored(JsonFileCache<V> cache) {
 		try {
-			productsVersions = Utils.readJson(versionsJson, versionsJsonType);
-		} catch (NullPointerException e) {
+			return cache.read();
+		} catch (JsonParseException e) {
+			log.warn("Can't read " + cache.getFile().getPath() + ", it will be rewritten");
+			return Collections.emptyMap();
+		}
+	}
+
+	private static boolean isUnchanged(VersionsState state, VersionsState storedState,
+	                                   Map<String, Boolean> storedVersions) {
+		return storedState != null && storedVersions != null
+				&& state.getAppliedVersions().equals(storedState.getAppliedVersions())
+				&& state.getRepositories().equals(storedState.getRepositories())
+				&& getChecksum(storedVersions).equals(storedState.getResult());
+	}
+
+	private static String getChecksum(Map<String, Boolean> versions) {
+		return Hashing.sha1().hashString(new TreeMap<>(versions).toString(), StandardCharsets.UTF_8).toString();
+	}
+
+	private Map<String, Map<String, Boolean>> readVersionsManifest(ProductCatalog current) {
+		for (String productListArtifactoryUrl : productListArtifactoryUrls) {
+			try {
+				Map<String, Map<String, Boolean>> manifest = AsyncTasks.getResult(newReader(productListArtifactoryUrl)
+						.getProductsVersionsManifestAsync(current.getReleaseVersion()));
+				if (manifest != null)
+					return manifest;
+			} catch (Exception e) {
+				log.warn("Can't read versions manifest from " + productListArtifactoryUrl + " cause of " + e.toString());
+			}
+		}
+		return null;
+	}
+
+	private static Map<String, Boolean> getAppliedVersions(String appliedVersionsContent, Set<String> versions) {
+		Set<String> versionsFromUrl = Arrays.stream(appliedVersionsContent.split("\n"))
+				.filter(s -> !s.startsWith("#"))
+				.filter(s -> !s.isEmpty())
+				.collect(Collectors.toSet());
+		return versions.stream()
+				.collect(Collectors.toMap(vers -> vers,
+						vers -> versionsFromUrl.contains(vers) || appliedVersionsContent.isEmpty()));
+	}
+
+	Map<String, Boolean> readProductVersions(String artifactId) {
+		return getProductVersions(artifactId).toMap();
+	}
+
+	ProductVersions getProductVersions(String simpleName) {
+		if (versionsJson == null)
 			throw new EProductListEntryNotFound("Can't find product list");
+		Map<String, Map<String, Boolean>> versions = productsVersionsCache.read();
+		synchronized (versionsIndexLock) {
+			if (versions != indexedVersions) {
+				indexedVersions = versions;
+				versionsIndex = new HashMap<>();
+			}
+			return versionsIndex.computeIfAbsent(simpleName, name -> versions.containsKey(name)
+					? new ProductVersions(versions.get(name)) : ProductVersions.EMPTY);
 		}
-		return productsVersions.getOrDefault(artifactId, new HashMap<>());
+	}
+
+	private File getProductListMetadataFolder() {
+		return new File(localRepo, Utils.coordsToFolderStructure(PRODUCT_LIST_GROUP_ID, PRODUCT_LIST_ARTIFACT_ID));
 	}
 
 	@SneakyThrows
 	private String getLocalProductListReleaseVersion() {
-		File metadataFolder = new File(localRepo, Utils.coordsToFolderStructure(PRODUCT_LIST_GROUP_ID, PRODUCT_LIST_ARTIFACT_ID));
-		File metadataFile = new File(metadataFolder, ArtifactoryReader.METADATA_FILE_NAME);
+		File metadataFile = new File(getProductListMetadataFolder(), ArtifactoryReader.METADATA_FILE_NAME);
 		if (metadataFile.exists()) {
 			MetadataXpp3Reader reader = new MetadataXpp3Reader();
 			@Cleanup
@@ -169,8 +468,7 @@ class ProductList {
 
 	@SneakyThrows
 	private void writeProductListMetadata(String productListReleaseVersion) {
-		File productListMetadataFolder = new File(localRepo,
-				Utils.coordsToFolderStructure(PRODUCT_LIST_GROUP_ID, PRODUCT_LIST_ARTIFACT_ID));
+		File productListMetadataFolder = getProductListMetadataFolder();
 		File productListMetadataFile = new File(productListMetadataFolder, "maven-metadata.xml");
 		if (productListMetadataFile.exists())
 			productListMetadataFile.delete();
@@ -186,4 +484,11 @@ class ProductList {
 			writer.write(os, metadata);
 		}
 	}
+
+	@Data
+	static class VersionsState {
+		private String appliedVersions;
+		private Map<String, String> repositories = new TreeMap<>();
+		private String result;
+	}
 }
@@ -0,0 +1,21 @@
+package org.scm4j.deployer.engine;
+
+import com.google.common.hash.Hashing;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+@Data
+class ProductMetadata {
+
+	static final ProductMetadata EMPTY = new ProductMetadata(Collections.emptyList(), null);
+	private final List<String> versions;
+	private final String lastUpdated;
+
+	String getStamp() {
+		return lastUpdated != null ? lastUpdated
+				: Hashing.sha1().hashString(String.join("\n", versions), StandardCharsets.UTF_8).toString();
+	}
+}
@@ -0,0 +1,75 @@
+package org.scm4j.deployer.engine;
+
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class ProductVersions {
+
+	static final ProductVersions EMPTY = new ProductVersions(Collections.emptyMap());
+	private final String[] versions;
+	private final DefaultArtifactVersion[] keys;
+	private final boolean[] applied;
+
+	ProductVersions(Map<String, Boolean> versionsMap) {
+		Map<String, DefaultArtifactVersion> parsed = new HashMap<>();
+		versionsMap.keySet().forEach(version -> parsed.put(version, new DefaultArtifactVersion(version)));
+		List<String> sorted = new ArrayList<>(versionsMap.keySet());
+		sorted.sort(Comparator.comparing(parsed::get));
+		this.versions = sorted.toArray(new String[0]);
+		this.keys = new DefaultArtifactVersion[versions.length];
+		this.applied = new boolean[versions.length];
+		for (int i = 0; i < versions.length; i++) {
+			keys[i] = parsed.get(versions[i]);
+			applied[i] = Boolean.TRUE.equals(versionsMap.get(versions[i]));
+		}
+	}
+
+	List<String> getVersions() {
+		return Collections.unmodifiableList(Arrays.asList(versions));
+	}
+
+	Map<String, Boolean> toMap() {
+		Map<String, Boolean> map = new LinkedHashMap<>();
+		for (int i = 0; i < versions.length; i++)
+			map.put(versions[i], applied[i]);
+		return map;
+	}
+
+	String getNewestApplied() {
+		return getNewestAppliedNewerThan(null);
+	}
+
+	String getNewestAppliedNewerThan(String version) {
+		int from = version == null ? 0 : indexOfNewerThan(version);
+		for (int i = versions.length - 1; i >= from; i--)
+			if (applied[i])
+				return versions[i];
+		return null;
+	}
+
+	List<String> getNewerThan(String version) {
+		return getVersions().subList(indexOfNewerThan(version), versions.length);
+	}
+
+	private int indexOfNewerThan(String version) {
+		DefaultArtifactVersion key = new DefaultArtifactVersion(version);
+		int low = 0;
+		int high = keys.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keys[mid].compareTo(key) <= 0)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+}
@@ -0,0 +1,117 @@
+package org.scm4j.deployer.engine;
+
+import com.google.gson.reflect.TypeToken;
+import lombok.Data;
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.MetadataNotFoundException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferListener;
+import org.eclipse.aether.transfer.TransferResource;
+
+import java.io.File;
+import java.lang.reflect.Type;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+class RepositoryStats extends PersistedJson<RepositoryStats.Entry> {
+
+	static final String STATS_FILE_NAME = "repository-stats.json";
+	static final long FAILURE_COOLDOWN_MILLIS = 10 * 60 * 1000;
+	private static final double ALPHA = 0.3;
+	private static final long REFERENCE_SIZE = 1024 * 1024;
+	private static final long MIN_THROUGHPUT_SIZE = 64 * 1024;
+	private static final Type STATS_TYPE = new TypeToken<Map<String, Entry>>() {
+	}.getType();
+
+	RepositoryStats(File workingFolder) {
+		super(new File(workingFolder, STATS_FILE_NAME), STATS_TYPE);
+	}
+
+	private static double average(double current, double sample) {
+		return current <= 0 ? sample : current + ALPHA * (sample - current);
+	}
+
+	private static boolean isRemote(String url) {
+		return url != null && !url.startsWith("file:");
+	}
+
+	synchronized void recordLatency(String url, long millis) {
+		Entry entry = getEntries().computeIfAbsent(url, key -> new Entry());
+		entry.setLatencyMillis(average(entry.getLatencyMillis(), Math.max(millis, 1)));
+		entry.setFailures(0);
+		markChanged();
+	}
+
+	synchronized void recordTransfer(String url, long bytes, long millis) {
+		if (bytes < MIN_THROUGHPUT_SIZE) {
+			recordLatency(url, millis);
+			return;
+		}
+		Entry entry = getEntries().computeIfAbsent(url, key -> new Entry());
+		entry.setBytesPerSecond(average(entry.getBytesPerSecond(), bytes * 1000.0 / Math.max(millis, 1)));
+		entry.setFailures(0);
+		markChanged();
+	}
+
+	synchronized void recordFailure(String url) {
+		Entry entry = getEntries().computeIfAbsent(url, key -> new Entry());
+		entry.setFailures(entry.getFailures() + 1);
+		entry.setLastFailure(System.currentTimeMillis());
+		markChanged();
+	}
+
+	synchronized <T> List<T> rank(List<T> repos, Function<T, String> toUrl) {
+		long now = System.currentTimeMillis();
+		return repos.stream()
+				.sorted(Comparator.<T, Boolean>comparing(repo -> !isHealthy(toUrl.apply(repo), now))
+						.thenComparingDouble(repo -> getExpectedMillis(toUrl.apply(repo))))
+				.collect(Collectors.toList());
+	}
+
+	private boolean isHealthy(String url, long now) {
+		Entry entry = getEntries().get(url);
+		return entry == null || entry.getFailures() == 0 || now - entry.getLastFailure() > FAILURE_COOLDOWN_MILLIS;
+	}
+
+	private double getExpectedMillis(String url) {
+		Entry entry = getEntries().get(url);
+		if (entry == null)
+			return 0;
+		double millis = entry.getLatencyMillis();
+		if (entry.getBytesPerSecond() > 0)
+			millis += REFERENCE_SIZE * 1000.0 / entry.getBytesPerSecond();
+		return millis;
+	}
+
+	TransferListener getTransferListener() {
+		return new AbstractTransferListener() {
+			@Override
+			public void transferSucceeded(TransferEvent event) {
+				TransferResource resource = event.getResource();
+				if (isRemote(resource.getRepositoryUrl()) && event.getRequestType() == TransferEvent.RequestType.GET)
+					recordTransfer(resource.getRepositoryUrl(), event.getTransferredBytes(),
+							System.currentTimeMillis() - resource.getTransferStartTime());
+			}
+
+			@Override
+			public void transferFailed(TransferEvent event) {
+				Exception e = event.getException();
+				if (isRemote(event.getResource().getRepositoryUrl()) && !(e instanceof ArtifactNotFoundException)
+						&& !(e instanceof MetadataNotFoundException))
+					recordFailure(event.getResource().getRepositoryUrl());
+			}
+		};
+	}
+
+	@Data
+	static class Entry {
+		private double latencyMillis;
+		private double bytesPerSecond;
+		private int failures;
+		private long lastFailure;
+	}
+}
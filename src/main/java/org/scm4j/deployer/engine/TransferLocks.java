@@ -0,0 +1,57 @@
+package org.scm4j.deployer.engine;
+
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.transfer.TransferEvent;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+class TransferLocks extends AbstractTransferListener {
+
+	private final Map<File, Thread> owners = new HashMap<>();
+
+	private static File getFile(TransferEvent event) {
+		return event.getRequestType() == TransferEvent.RequestType.GET ? event.getResource().getFile() : null;
+	}
+
+	@Override
+	public void transferInitiated(TransferEvent event) throws TransferCancelledException {
+		File file = getFile(event);
+		if (file == null)
+			return;
+		synchronized (owners) {
+			while (owners.containsKey(file)) {
+				try {
+					owners.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new TransferCancelledException("Interrupted while waiting for " + file.getPath());
+				}
+			}
+			owners.put(file, Thread.currentThread());
+		}
+	}
+
+	@Override
+	public void transferSucceeded(TransferEvent event) {
+		release(getFile(event));
+	}
+
+	@Override
+	public void transferFailed(TransferEvent event) {
+		release(getFile(event));
+	}
+
+	private void release(File file) {
+		if (file == null)
+			return;
+		synchronized (owners) {
+			if (owners.get(file) == Thread.currentThread()) {
+				owners.remove(file);
+				owners.notifyAll();
+			}
+		}
+	}
+}
@@ -7,7 +7,9 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
 import org.eclipse.aether.ConfigurationProperties;
+import org.eclipse.aether.DefaultRepositoryCache;
 import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.DefaultSessionData;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
@@ -24,12 +26,14 @@ import org.scm4j.deployer.api.ProductInfo;
 import org.scm4j.deployer.engine.exceptions.EProductNotFound;
 import org.scm4j.deployer.engine.loggers.RepositoryLogger;
 import org.scm4j.deployer.engine.loggers.TransferListener;
+import org.scm4j.deployer.engine.transport.SegmentedTransporterFactory;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.lang.reflect.Type;
 import java.net.URL;
+import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
@@ -71,6 +75,7 @@ public final class Utils {
 		locator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
 		locator.addService(TransporterFactory.class, FileTransporterFactory.class);
 		locator.addService(TransporterFactory.class, HttpTransporterFactory.class);
+		locator.addService(TransporterFactory.class, SegmentedTransporterFactory.class);
 
 		locator.setErrorHandler(new DefaultServiceLocator.ErrorHandler() {
 			@Override
@@ -84,6 +89,8 @@ public final class Utils {
 	public static DefaultRepositorySystemSession newRepositorySystemSession(RepositorySystem system, File repository) {
 		DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
 		session.setConfigProperty(ConfigurationProperties.CONNECT_TIMEOUT, 60 * 1000);
+		session.setCache(new DefaultRepositoryCache());
+		session.setData(new DefaultSessionData());
 		DefaultArtifactTypeRegistry stereotypes = new DefaultArtifactTypeRegistry();
 		stereotypes.add(new DefaultArtifactType("pom"));
 		stereotypes.add(new DefaultArtifactType("maven-plugin", "jar", "", "java"));
@@ -141,12 +148,19 @@ public final class Utils {
 		}
 	}
 
-	@SneakyThrows
 	public static String readStringFromUrl(String requestURL) {
+		return readStringFromUrl(requestURL, 0, 0);
+	}
+
+	@SneakyThrows
+	public static String readStringFromUrl(String requestURL, int connectTimeout, int readTimeout) {
 		if (requestURL == null || requestURL.isEmpty()) {
 			return "";
 		}
-		try (Scanner scanner = new Scanner(new URL(requestURL).openStream(),
+		URLConnection connection = new URL(requestURL).openConnection();
+		connection.setConnectTimeout(connectTimeout);
+		connection.setReadTimeout(readTimeout);
+		try (Scanner scanner = new Scanner(connection.getInputStream(),
 				StandardCharsets.UTF_8.toString())) {
 			scanner.useDelimiter("\\A");
 			return scanner.hasNext() ? scanner.next() : "";
@@ -0,0 +1,80 @@
+package org.scm4j.deployer.engine;
+
+import com.google.gson.reflect.TypeToken;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.File;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@Setter
+public class VersionsCache extends PersistedJson<VersionsCache.Entry> {
+
+	public static final String CACHE_FILE_NAME = "versions-cache.json";
+	public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+	private static final Type CACHE_TYPE = new TypeToken<Map<String, Entry>>() {
+	}.getType();
+	private long ttlMillis = DEFAULT_TTL_MILLIS;
+
+	public VersionsCache(File workingFolder) {
+		super(new File(workingFolder, CACHE_FILE_NAME), CACHE_TYPE);
+	}
+
+	private static String getKey(String repositoryUrl, String groupIdAndArtifactId) {
+		return repositoryUrl + "|" + groupIdAndArtifactId;
+	}
+
+	synchronized ProductMetadata get(String repositoryUrl, String groupIdAndArtifactId) {
+		String key = getKey(repositoryUrl, groupIdAndArtifactId);
+		Entry entry = getEntries().get(key);
+		if (entry == null)
+			return null;
+		if (entry.getExpiration() > System.currentTimeMillis())
+			return new ProductMetadata(new ArrayList<>(entry.getVersions()), entry.getLastUpdated());
+		getEntries().remove(key);
+		markChanged();
+		return null;
+	}
+
+	synchronized void put(String repositoryUrl, String groupIdAndArtifactId, ProductMetadata metadata) {
+		if (ttlMillis <= 0)
+			return;
+		Entry entry = new Entry();
+		entry.setVersions(new ArrayList<>(metadata.getVersions()));
+		entry.setLastUpdated(metadata.getLastUpdated());
+		entry.setExpiration(System.currentTimeMillis() + ttlMillis);
+		getEntries().put(getKey(repositoryUrl, groupIdAndArtifactId), entry);
+		markChanged();
+	}
+
+	public synchronized void invalidate(String groupIdAndArtifactId) {
+		if (getEntries().keySet().removeIf(key -> key.endsWith("|" + groupIdAndArtifactId)))
+			markChanged();
+	}
+
+	public synchronized void invalidate() {
+		if (!getEntries().isEmpty()) {
+			getEntries().clear();
+			markChanged();
+		}
+	}
+
+	@Override
+	void prune() {
+		long now = System.currentTimeMillis();
+		getEntries().values().removeIf(entry -> entry.getExpiration() <= now);
+	}
+
+	@Data
+	static class Entry {
+		private List<String> versions;
+		private String lastUpdated;
+		private long expiration;
+	}
+}
@@ -0,0 +1,9 @@
+package org.scm4j.deployer.engine.exceptions;
+
+public class EDeltaPatch extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public EDeltaPatch(String message) {
+		super(message);
+	}
+}
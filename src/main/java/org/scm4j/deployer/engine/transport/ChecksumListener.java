@@ -0,0 +1,74 @@
+package org.scm4j.deployer.engine.transport;
+
+import com.google.common.io.BaseEncoding;
+import org.eclipse.aether.spi.connector.transport.TransportListener;
+import org.eclipse.aether.transfer.TransferCancelledException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class ChecksumListener extends TransportListener {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private final File file;
+	private final TransportListener delegate;
+	private final Map<String, MessageDigest> digests = new LinkedHashMap<>();
+
+	ChecksumListener(File file, TransportListener delegate, Collection<String> algorithms) {
+		this.file = file;
+		this.delegate = delegate;
+		try {
+			for (String algorithm : algorithms)
+				digests.put(algorithm, MessageDigest.getInstance(algorithm));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	@Override
+	public void transportStarted(long dataOffset, long dataLength) throws TransferCancelledException {
+		digests.values().forEach(MessageDigest::reset);
+		if (dataOffset > 0)
+			digestPrefix(dataOffset);
+		delegate.transportStarted(dataOffset, dataLength);
+	}
+
+	@Override
+	public void transportProgressed(ByteBuffer data) throws TransferCancelledException {
+		for (MessageDigest digest : digests.values())
+			digest.update(data.duplicate());
+		delegate.transportProgressed(data);
+	}
+
+	Map<String, String> getChecksums() {
+		Map<String, String> checksums = new LinkedHashMap<>();
+		digests.forEach((algorithm, digest) -> checksums.put(algorithm,
+				BaseEncoding.base16().lowerCase().encode(digest.digest())));
+		return checksums;
+	}
+
+	private void digestPrefix(long length) {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream is = new FileInputStream(file)) {
+			long remaining = length;
+			while (remaining > 0) {
+				int read = is.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+				if (read < 0)
+					break;
+				for (MessageDigest digest : digests.values())
+					digest.update(buffer, 0, read);
+				remaining -= read;
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Can't read downloaded part of " + file.getPath(), e);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package org.scm4j.deployer.engine.transport;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import lombok.Data;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+@Data
+class DownloadState {
+
+	static final String STATE_FILE_EXTENSION = ".download.json";
+	private final String uri;
+	private final long length;
+	private final String etag;
+	private final String lastModified;
+	private final List<SegmentState> segments;
+
+	static DownloadState create(String uri, RemoteFile remote, int segmentCount) {
+		List<SegmentState> segments = new ArrayList<>();
+		long segmentLength = remote.getLength() / segmentCount;
+		for (int i = 0; i < segmentCount; i++) {
+			long start = i * segmentLength;
+			long end = i == segmentCount - 1 ? remote.getLength() : start + segmentLength;
+			segments.add(new SegmentState(start, end));
+		}
+		return new DownloadState(uri, remote.getLength(), remote.getEtag(), remote.getLastModified(), segments);
+	}
+
+	static File getStateFile(File dataFile) {
+		return new File(dataFile.getPath() + STATE_FILE_EXTENSION);
+	}
+
+	static DownloadState read(File stateFile) {
+		if (!stateFile.exists())
+			return null;
+		try {
+			return new Gson().fromJson(FileUtils.readFileToString(stateFile, "UTF-8"), DownloadState.class);
+		} catch (IOException | JsonParseException e) {
+			return null;
+		}
+	}
+
+	boolean matches(String uri, RemoteFile remote, File dataFile) {
+		return this.uri.equals(uri) && length == remote.getLength() && dataFile.length() == length
+				&& (etag != null || lastModified != null)
+				&& Objects.equals(etag, remote.getEtag()) && Objects.equals(lastModified, remote.getLastModified());
+	}
+
+	long getWritten() {
+		return segments.stream().mapToLong(SegmentState::getWritten).sum();
+	}
+
+	void write(File stateFile) throws IOException {
+		FileUtils.writeStringToFile(stateFile, new Gson().toJson(this), "UTF-8");
+	}
+
+	@Data
+	static class SegmentState {
+		private final long start;
+		private final long end;
+		private long written;
+	}
+}
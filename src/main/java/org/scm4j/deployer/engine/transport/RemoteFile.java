@@ -0,0 +1,11 @@
+package org.scm4j.deployer.engine.transport;
+
+import lombok.Data;
+
+@Data
+class RemoteFile {
+	private final long length;
+	private final boolean rangeable;
+	private final String etag;
+	private final String lastModified;
+}
@@ -0,0 +1,213 @@
+package org.scm4j.deployer.engine.transport;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.eclipse.aether.spi.connector.transport.TransportListener;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Slf4j
+final class SegmentedDownload {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final long WAIT_MILLIS = 100;
+	private static final long CHECKPOINT_BYTES = 8L * 1024 * 1024;
+	private final CloseableHttpClient client;
+	private final URI uri;
+	private final File file;
+	private final File stateFile;
+	private final DownloadState state;
+	private final List<Segment> segments;
+	private final Object progress = new Object();
+	private volatile Exception failure;
+
+	SegmentedDownload(CloseableHttpClient client, URI uri, File file, DownloadState state) {
+		this.client = client;
+		this.uri = uri;
+		this.file = file;
+		this.stateFile = DownloadState.getStateFile(file);
+		this.state = state;
+		this.segments = state.getSegments().stream()
+				.map(Segment::new)
+				.collect(Collectors.toList());
+	}
+
+	void run(TransportListener listener) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(segments.size(),
+				new ThreadFactoryBuilder()
+						.setNameFormat("scm4j-segment-%d")
+						.setDaemon(true)
+						.setPriority(Thread.currentThread().getPriority())
+						.build());
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(state.getLength());
+			FileChannel channel = raf.getChannel();
+			try {
+				checkpoint(channel);
+				for (Segment segment : segments)
+					if (segment.position() < segment.state.getEnd())
+						executor.submit(() -> fetch(segment, channel));
+				report(channel, listener);
+			} catch (Exception e) {
+				segments.forEach(Segment::abort);
+				executor.shutdownNow();
+				saveState(channel);
+				throw e;
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		if (!stateFile.delete() && stateFile.exists())
+			log.debug("Can't delete " + stateFile.getPath());
+	}
+
+	private void report(FileChannel channel, TransportListener listener) throws Exception {
+		long length = state.getLength();
+		long reported = frontier();
+		if (reported > 0)
+			log.info("Resuming download of " + uri + " from " + state.getWritten() + " of " + length + " bytes");
+		listener.transportStarted(reported, length);
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		long checkpointed = reported;
+		while (reported < length) {
+			long frontier = frontier();
+			while (reported < frontier) {
+				buffer.clear();
+				buffer.limit((int) Math.min(buffer.capacity(), frontier - reported));
+				int read = channel.read(buffer, reported);
+				if (read < 0)
+					throw new EOFException("Unexpected end of " + file.getPath());
+				buffer.flip();
+				listener.transportProgressed(buffer);
+				reported += read;
+			}
+			if (reported - checkpointed >= CHECKPOINT_BYTES) {
+				checkpoint(channel);
+				checkpointed = reported;
+			}
+			if (reported < length)
+				awaitProgress(reported);
+		}
+	}
+
+	private long frontier() {
+		for (Segment segment : segments) {
+			long position = segment.position();
+			if (position < segment.state.getEnd())
+				return position;
+		}
+		return state.getLength();
+	}
+
+	private void awaitProgress(long reported) throws Exception {
+		synchronized (progress) {
+			while (failure == null && frontier() <= reported)
+				progress.wait(WAIT_MILLIS);
+		}
+		if (failure != null)
+			throw failure;
+	}
+
+	private void signal() {
+		synchronized (progress) {
+			progress.notifyAll();
+		}
+	}
+
+	private void checkpoint(FileChannel channel) throws IOException {
+		segments.forEach(Segment::commit);
+		channel.force(false);
+		state.write(stateFile);
+	}
+
+	private void saveState(FileChannel channel) {
+		try {
+			checkpoint(channel);
+		} catch (IOException e) {
+			log.debug("Can't save download state of " + uri + " cause of " + e.toString());
+		}
+	}
+
+	private void fetch(Segment segment, FileChannel channel) {
+		try {
+			long position = segment.position();
+			long end = segment.state.getEnd();
+			HttpGet request = new HttpGet(uri);
+			request.setHeader(HttpHeaders.RANGE, "bytes=" + position + "-" + (end - 1));
+			request.setHeader(HttpHeaders.ACCEPT_ENCODING, "identity");
+			if (state.getEtag() != null)
+				request.setHeader(HttpHeaders.IF_RANGE, state.getEtag());
+			else if (state.getLastModified() != null)
+				request.setHeader(HttpHeaders.IF_RANGE, state.getLastModified());
+			segment.request = request;
+			try (CloseableHttpResponse response = client.execute(request)) {
+				int status = response.getStatusLine().getStatusCode();
+				Header range = response.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+				if (status != HttpStatus.SC_PARTIAL_CONTENT || range == null
+						|| !range.getValue().startsWith("bytes " + position + "-"))
+					throw new IOException("Unexpected response " + response.getStatusLine() + " to range request of "
+							+ uri);
+				InputStream is = response.getEntity().getContent();
+				byte[] bytes = new byte[BUFFER_SIZE];
+				while (position < end) {
+					int read = is.read(bytes, 0, (int) Math.min(bytes.length, end - position));
+					if (read < 0)
+						throw new EOFException("Premature end of range " + segment.state.getStart() + "-" + end
+								+ " of " + uri);
+					ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, read);
+					while (buffer.hasRemaining())
+						position += channel.write(buffer, position);
+					segment.written.set(position - segment.state.getStart());
+					signal();
+				}
+			}
+		} catch (Exception e) {
+			if (failure == null)
+				failure = e;
+			signal();
+		}
+	}
+
+	private static final class Segment {
+		private final DownloadState.SegmentState state;
+		private final AtomicLong written;
+		private volatile HttpGet request;
+
+		private Segment(DownloadState.SegmentState state) {
+			this.state = state;
+			this.written = new AtomicLong(state.getWritten());
+		}
+
+		private long position() {
+			return state.getStart() + written.get();
+		}
+
+		private void commit() {
+			state.setWritten(written.get());
+		}
+
+		private void abort() {
+			HttpGet current = request;
+			if (current != null)
+				current.abort();
+		}
+	}
+}
@@ -0,0 +1,353 @@
+package org.scm4j.deployer.engine.transport;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.eclipse.aether.ConfigurationProperties;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.AuthenticationContext;
+import org.eclipse.aether.repository.Proxy;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.AbstractTransporter;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.spi.connector.transport.TransportListener;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.transfer.ChecksumFailureException;
+import org.eclipse.aether.util.ConfigUtils;
+import org.scm4j.deployer.engine.NegativeCache;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Slf4j
+final class SegmentedTransporter extends AbstractTransporter {
+
+	private static final String SHA_1 = "SHA-1";
+	private static final String SHA_256 = "SHA-256";
+	private static final List<String> CHECKSUM_ALGORITHMS = Arrays.asList(SHA_1, SHA_256);
+	private final Transporter delegate;
+	private final URI baseUri;
+	private final int segments;
+	private final long segmentThreshold;
+	private final boolean verifyChecksums;
+	private final NegativeCache negativeCache;
+	private final int connectTimeout;
+	private final int requestTimeout;
+	private final Proxy proxy;
+	private final AuthenticationContext repoAuthContext;
+	private final AuthenticationContext proxyAuthContext;
+	private CloseableHttpClient client;
+	private ExecutorService checksumExecutor;
+
+	SegmentedTransporter(RepositorySystemSession session, RemoteRepository repository, Transporter delegate) {
+		this.delegate = delegate;
+		this.baseUri = URI.create(StringUtils.appendIfMissing(repository.getUrl(), "/"));
+		this.segments = ConfigUtils.getInteger(session, SegmentedTransporterFactory.DEFAULT_SEGMENTS,
+				SegmentedTransporterFactory.CONFIG_PROP_SEGMENTS);
+		this.segmentThreshold = ConfigUtils.getLong(session, SegmentedTransporterFactory.DEFAULT_SEGMENT_THRESHOLD,
+				SegmentedTransporterFactory.CONFIG_PROP_SEGMENT_THRESHOLD);
+		this.verifyChecksums = ConfigUtils.getBoolean(session, true,
+				SegmentedTransporterFactory.CONFIG_PROP_VERIFY_CHECKSUMS);
+		Object cache = session.getConfigProperties().get(SegmentedTransporterFactory.CONFIG_PROP_NEGATIVE_CACHE);
+		this.negativeCache = cache instanceof NegativeCache ? (NegativeCache) cache : null;
+		this.connectTimeout = ConfigUtils.getInteger(session, ConfigurationProperties.DEFAULT_CONNECT_TIMEOUT,
+				ConfigurationProperties.CONNECT_TIMEOUT);
+		this.requestTimeout = ConfigUtils.getInteger(session, ConfigurationProperties.DEFAULT_REQUEST_TIMEOUT,
+				ConfigurationProperties.REQUEST_TIMEOUT);
+		this.proxy = repository.getProxy();
+		this.repoAuthContext = AuthenticationContext.forRepository(session, repository);
+		this.proxyAuthContext = AuthenticationContext.forProxy(session, repository);
+	}
+
+	@Override
+	public int classify(Throwable error) {
+		if (error instanceof FileNotFoundException)
+			return ERROR_NOT_FOUND;
+		return delegate.classify(error);
+	}
+
+	@Override
+	protected void implPeek(PeekTask task) throws Exception {
+		String url = checkNotMissing(task.getLocation());
+		try {
+			delegate.peek(task);
+		} catch (Exception e) {
+			putIfMissing(url, e);
+			throw e;
+		}
+	}
+
+	@Override
+	protected void implGet(GetTask task) throws Exception {
+		String url = checkNotMissing(task.getLocation());
+		try {
+			fetch(task);
+		} catch (Exception e) {
+			putIfMissing(url, e);
+			throw e;
+		}
+	}
+
+	private String checkNotMissing(URI location) throws FileNotFoundException {
+		String url = baseUri.resolve(location).toString();
+		if (negativeCache != null && negativeCache.isMissing(url))
+			throw new FileNotFoundException(url + " is cached as missing");
+		return url;
+	}
+
+	private void putIfMissing(String url, Exception e) {
+		if (negativeCache != null && classify(e) == ERROR_NOT_FOUND)
+			negativeCache.putMissing(url);
+	}
+
+	private void fetch(GetTask task) throws Exception {
+		File file = task.getDataFile();
+		URI uri = baseUri.resolve(task.getLocation());
+		if (file == null || isChecksumFile(uri)) {
+			delegate.get(task);
+			return;
+		}
+		File stateFile = DownloadState.getStateFile(file);
+		RemoteFile remote = null;
+		if (task.getResumeOffset() == 0)
+			FileUtils.deleteQuietly(stateFile);
+		else if (stateFile.exists())
+			remote = queryRemoteFile(uri);
+		if (remote == null && isSegmentable(uri))
+			remote = queryRemoteFile(uri);
+		if (!verifyChecksums) {
+			download(task, uri, remote, task.getListener());
+			return;
+		}
+		Map<String, Future<String>> expected = new LinkedHashMap<>();
+		expected.put(SHA_1, getChecksumExecutor().submit(() -> fetchChecksum(uri, "sha1")));
+		if (remote != null && getSegmentCount(remote) > 0)
+			expected.put(SHA_256, getChecksumExecutor().submit(() -> fetchChecksum(uri, "sha256")));
+		try {
+			ChecksumListener listener = new ChecksumListener(file, task.getListener(), CHECKSUM_ALGORITHMS);
+			download(task, uri, remote, listener);
+			verify(uri, task, listener.getChecksums(), expected);
+		} catch (ChecksumFailureException e) {
+			FileUtils.deleteQuietly(stateFile);
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(0);
+			}
+			throw e;
+		} finally {
+			await(expected.values());
+		}
+	}
+
+	private static void await(Collection<Future<String>> futures) {
+		for (Future<String> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				futures.forEach(pending -> pending.cancel(true));
+				return;
+			} catch (ExecutionException e) {
+				log.debug("Checksum fetch failed", e.getCause());
+			}
+		}
+	}
+
+	private boolean isSegmentable(URI uri) {
+		String path = uri.getPath();
+		return segments > 1 && !path.endsWith(".pom") && !path.endsWith(".jar") && !path.endsWith(".xml");
+	}
+
+	private void download(GetTask task, URI uri, RemoteFile remote, TransportListener listener) throws Exception {
+		File file = task.getDataFile();
+		File stateFile = DownloadState.getStateFile(file);
+		DownloadState state = task.getResumeOffset() > 0 ? DownloadState.read(stateFile) : null;
+		boolean ownPartialFile = stateFile.exists();
+		int segmentCount = remote == null ? 0 : getSegmentCount(remote);
+		if (segmentCount == 0) {
+			if (ownPartialFile)
+				FileUtils.deleteQuietly(stateFile);
+			GetTask plain = new GetTask(task.getLocation())
+					.setDataFile(file, !ownPartialFile && task.getResumeOffset() > 0)
+					.setListener(listener);
+			delegate.get(plain);
+			plain.getChecksums().forEach(task::setChecksum);
+			return;
+		}
+		if (state != null && !state.matches(uri.toString(), remote, file)) {
+			log.info("Remote " + uri + " is changed, partial download is discarded");
+			state = null;
+		}
+		if (state == null) {
+			state = DownloadState.create(uri.toString(), remote, segmentCount);
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(0);
+			}
+		}
+		log.debug("Downloading " + uri + " in " + state.getSegments().size() + " segments");
+		new SegmentedDownload(getClient(), uri, file, state).run(listener);
+	}
+
+	private static boolean isChecksumFile(URI uri) {
+		String path = uri.getPath();
+		return path.endsWith(".sha1") || path.endsWith(".sha256") || path.endsWith(".md5") || path.endsWith(".asc");
+	}
+
+	private static void verify(URI uri, GetTask task, Map<String, String> actual, Map<String, Future<String>> expected)
+			throws Exception {
+		boolean verified = false;
+		for (Map.Entry<String, Future<String>> entry : expected.entrySet()) {
+			String algorithm = entry.getKey();
+			String checksum = task.getChecksums().get(algorithm);
+			if (checksum == null)
+				checksum = entry.getValue().get();
+			if (checksum == null) {
+				log.debug("No remote " + algorithm + " checksum for " + uri);
+				continue;
+			}
+			if (!checksum.equalsIgnoreCase(actual.get(algorithm)))
+				throw new ChecksumFailureException(checksum, actual.get(algorithm));
+			verified = true;
+		}
+		if (!verified)
+			log.warn("No remote checksum for " + uri + ", download is not verified");
+	}
+
+	private String fetchChecksum(URI uri, String extension) {
+		HttpGet request = new HttpGet(uri.toString() + "." + extension);
+		try (CloseableHttpResponse response = getClient().execute(request)) {
+			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK)
+				return null;
+			String content = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8).trim();
+			return content.isEmpty() ? null : content.split("\\s+")[0];
+		} catch (IOException e) {
+			log.debug("Can't fetch " + request.getURI() + " cause of " + e.toString());
+			return null;
+		}
+	}
+
+	private synchronized ExecutorService getChecksumExecutor() {
+		if (checksumExecutor == null)
+			checksumExecutor = Executors.newCachedThreadPool(
+					new ThreadFactoryBuilder().setNameFormat("scm4j-checksum-%d").setDaemon(true).build());
+		return checksumExecutor;
+	}
+
+	private int getSegmentCount(RemoteFile remote) {
+		return remote.isRangeable() && segments > 1 && remote.getLength() >= segmentThreshold ? segments : 0;
+	}
+
+	private RemoteFile queryRemoteFile(URI uri) {
+		HttpHead request = new HttpHead(uri);
+		try (CloseableHttpResponse response = getClient().execute(request)) {
+			return response.getStatusLine().getStatusCode() == HttpStatus.SC_OK ? getRemoteFile(response) : null;
+		} catch (IOException e) {
+			log.debug("Can't query " + uri + " cause of " + e.toString());
+			return null;
+		}
+	}
+
+	private static RemoteFile getRemoteFile(CloseableHttpResponse response) {
+		Header ranges = response.getFirstHeader(HttpHeaders.ACCEPT_RANGES);
+		Header length = response.getFirstHeader(HttpHeaders.CONTENT_LENGTH);
+		Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+		Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+		if (length == null)
+			return null;
+		try {
+			return new RemoteFile(Long.parseLong(length.getValue()),
+					ranges != null && "bytes".equalsIgnoreCase(ranges.getValue()),
+					etag == null ? null : etag.getValue(),
+					lastModified == null ? null : lastModified.getValue());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private synchronized CloseableHttpClient getClient() {
+		if (client == null) {
+			PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+			connectionManager.setDefaultMaxPerRoute(segments + 2);
+			connectionManager.setMaxTotal(segments + 2);
+			CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+			addCredentials(credentialsProvider, new AuthScope(baseUri.getHost(), baseUri.getPort()), repoAuthContext);
+			if (proxy != null)
+				addCredentials(credentialsProvider, new AuthScope(proxy.getHost(), proxy.getPort()), proxyAuthContext);
+			client = HttpClients.custom()
+					.setConnectionManager(connectionManager)
+					.setDefaultCredentialsProvider(credentialsProvider)
+					.setProxy(proxy == null ? null : new HttpHost(proxy.getHost(), proxy.getPort()))
+					.setDefaultRequestConfig(RequestConfig.custom()
+							.setConnectTimeout(connectTimeout)
+							.setSocketTimeout(requestTimeout)
+							.build())
+					.build();
+		}
+		return client;
+	}
+
+	private static void addCredentials(CredentialsProvider credentialsProvider, AuthScope scope,
+	                                   AuthenticationContext authContext) {
+		if (authContext == null)
+			return;
+		String userName = authContext.get(AuthenticationContext.USERNAME);
+		if (userName != null)
+			credentialsProvider.setCredentials(scope, new UsernamePasswordCredentials(userName,
+					authContext.get(AuthenticationContext.PASSWORD)));
+	}
+
+	@Override
+	protected void implPut(PutTask task) throws Exception {
+		delegate.put(task);
+	}
+
+	@Override
+	protected synchronized void implClose() {
+		delegate.close();
+		AuthenticationContext.close(repoAuthContext);
+		AuthenticationContext.close(proxyAuthContext);
+		if (checksumExecutor != null) {
+			checksumExecutor.shutdownNow();
+			checksumExecutor = null;
+		}
+		if (client != null) {
+			try {
+				client.close();
+			} catch (IOException e) {
+				log.debug("Can't close http client cause of " + e.toString());
+			}
+			client = null;
+		}
+	}
+}
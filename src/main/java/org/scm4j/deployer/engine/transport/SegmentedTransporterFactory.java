@@ -0,0 +1,39 @@
+package org.scm4j.deployer.engine.transport;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.spi.locator.Service;
+import org.eclipse.aether.spi.locator.ServiceLocator;
+import org.eclipse.aether.transfer.NoTransporterException;
+import org.eclipse.aether.transport.http.HttpTransporterFactory;
+
+public final class SegmentedTransporterFactory implements TransporterFactory, Service {
+
+	public static final String CONFIG_PROP_SEGMENTS = "scm4j.download.segments";
+	public static final String CONFIG_PROP_SEGMENT_THRESHOLD = "scm4j.download.segmentThreshold";
+	public static final int DEFAULT_SEGMENTS = 1;
+	public static final long DEFAULT_SEGMENT_THRESHOLD = 50L * 1024 * 1024;
+	public static final String CONFIG_PROP_VERIFY_CHECKSUMS = "scm4j.download.verifyChecksums";
+	public static final String CONFIG_PROP_NEGATIVE_CACHE = "scm4j.download.negativeCache";
+
+	private final HttpTransporterFactory httpTransporterFactory = new HttpTransporterFactory();
+
+	@Override
+	public void initService(ServiceLocator locator) {
+		httpTransporterFactory.initService(locator);
+	}
+
+	@Override
+	public Transporter newInstance(RepositorySystemSession session, RemoteRepository repository)
+			throws NoTransporterException {
+		Transporter delegate = httpTransporterFactory.newInstance(session, repository);
+		return new SegmentedTransporter(session, repository, delegate);
+	}
+
+	@Override
+	public float getPriority() {
+		return httpTransporterFactory.getPriority() + 1;
+	}
+}
@@ -1,10 +1,33 @@
 package org.scm4j.deployer.engine;
 
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class ArtifactoryReaderTest {
 
@@ -17,4 +40,269 @@ public class ArtifactoryReaderTest {
 		assertEquals(new URL("http://google.com/"), reader.getUrl());
 	}
 
+
+	@Test
+	public void testParseVersionsStreaming() throws Exception {
+		String metadata = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<metadata>\n"
+				+ "  <groupId>eu.untill</groupId>\n  <artifactId>unTill</artifactId>\n  <version>1.0</version>\n"
+				+ "  <versioning>\n    <release>1.1</release>\n"
+				+ "    <versions>\n      <version>1.0</version>\n      <version> 1.1 </version>\n    </versions>\n"
+				+ "    <snapshot>\n      <timestamp>20180101.101010</timestamp>\n      <buildNumber>2</buildNumber>\n"
+				+ "    </snapshot>\n    <snapshotVersions>\n"
+				+ "      <snapshotVersion>\n        <extension>jar</extension>\n"
+				+ "        <value>1.2-20180101.101010-2</value>\n      </snapshotVersion>\n"
+				+ "      <snapshotVersion>\n        <extension>pom</extension>\n"
+				+ "        <value>1.2-20180101.101010-2</value>\n      </snapshotVersion>\n"
+				+ "    </snapshotVersions>\n  </versioning>\n</metadata>\n";
+		List<String> expected = Arrays.asList("1.0", "1.1", "1.2-20180101.101010-2");
+		assertEquals(expected, ArtifactoryReader.parseVersions(
+				new ByteArrayInputStream(metadata.getBytes(StandardCharsets.UTF_8))));
+		assertEquals(expected, ArtifactoryReader.parseMetadataVersions(
+				new ByteArrayInputStream(metadata.getBytes(StandardCharsets.UTF_8))).stream()
+				.distinct()
+				.collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testMissingMetadataCached() throws Exception {
+		File artifactoryFolder = new File(DeployerEngineTest.TEST_DIR, "negative");
+		try {
+			artifactoryFolder.mkdirs();
+			NegativeCache negativeCache = new NegativeCache(artifactoryFolder);
+			ArtifactoryReader reader = ArtifactoryReader.getByUrl(artifactoryFolder.toURI().toURL().toString());
+			reader.setNegativeCache(negativeCache);
+			assertTrue(reader.getProductVersions("org.jooq:jooq").isEmpty());
+			assertEquals(2, negativeCache.getExpirations().size());
+			new ArtifactoryWriter(artifactoryFolder).installArtifact("org.jooq", "jooq", "3.1.0", "jar",
+					"dependency content", artifactoryFolder);
+			assertTrue(reader.getProductVersions("org.jooq:jooq").isEmpty());
+			negativeCache.invalidate();
+			assertEquals(Collections.singletonList("3.1.0"), reader.getProductVersions("org.jooq:jooq"));
+		} finally {
+			FileUtils.deleteDirectory(artifactoryFolder);
+		}
+	}
+
+	@Test
+	public void testVersionsCached() throws Exception {
+		File artifactoryFolder = new File(DeployerEngineTest.TEST_DIR, "versions");
+		try {
+			ArtifactoryWriter writer = new ArtifactoryWriter(artifactoryFolder);
+			writer.installArtifact("eu.untill", "unTill", "123.4", "jar", "dependency content", artifactoryFolder);
+			VersionsCache versionsCache = new VersionsCache(artifactoryFolder);
+			ArtifactoryReader reader = ArtifactoryReader.getByUrl(artifactoryFolder.toURI().toURL().toString());
+			reader.setVersionsCache(versionsCache);
+			assertEquals(Collections.singletonList("123.4"), reader.getProductVersions("eu.untill:unTill"));
+			versionsCache.save();
+			writer.installArtifact("eu.untill", "unTill", "124.5", "jar", "dependency content", artifactoryFolder);
+			reader.setVersionsCache(new VersionsCache(artifactoryFolder));
+			assertEquals(Collections.singletonList("123.4"), reader.getProductVersions("eu.untill:unTill"));
+			reader.getVersionsCache().invalidate();
+			assertEquals(Arrays.asList("123.4", "124.5"), reader.getProductVersions("eu.untill:unTill"));
+		} finally {
+			FileUtils.deleteDirectory(artifactoryFolder);
+		}
+	}
+
+	@Test
+	public void testProductVersionsAsync() throws Exception {
+		File artifactoryFolder = new File(DeployerEngineTest.TEST_DIR, "async");
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		CountDownLatch release = new CountDownLatch(1);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/", exchange -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+		});
+		server.start();
+		ExecutorService executor = AsyncTasks.newExecutor("test-reader-%d", 1);
+		try {
+			new ArtifactoryWriter(artifactoryFolder).installArtifact("org.jooq", "jooq", "3.1.0", "jar",
+					"dependency content", artifactoryFolder);
+			ArtifactoryReader fileReader = ArtifactoryReader.getByUrl(artifactoryFolder.toURI().toURL().toString());
+			fileReader.setExecutor(executor);
+			assertEquals(Collections.singletonList("3.1.0"), fileReader.getProductVersionsAsync("org.jooq:jooq").get());
+			ArtifactoryReader reader = ArtifactoryReader.getByUrl("http://localhost:" + server.getAddress().getPort() + "/");
+			reader.setExecutor(executor);
+			reader.setAsyncTimeoutMillis(200);
+			try {
+				reader.getProductVersionsAsync("org.jooq:jooq").join();
+				fail();
+			} catch (CompletionException e) {
+				assertTrue(e.getCause() instanceof TimeoutException);
+			}
+			assertEquals(Collections.singletonList("3.1.0"), fileReader.getProductVersionsAsync("org.jooq:jooq")
+					.get(5, TimeUnit.SECONDS));
+			reader.setAsyncTimeoutMillis(0);
+			CompletableFuture<String> future = reader.getProductListReleaseVersionAsync();
+			assertTrue(future.cancel(true));
+			assertTrue(future.isCancelled());
+		} finally {
+			executor.shutdownNow();
+			release.countDown();
+			server.stop(0);
+			FileUtils.deleteDirectory(artifactoryFolder);
+		}
+	}
+
+	@Test
+	public void testQueuedRequestTimesOut() throws Exception {
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		CountDownLatch release = new CountDownLatch(1);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/", exchange -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+		});
+		server.start();
+		ExecutorService executor = AsyncTasks.newExecutor("test-reader-%d", 1);
+		try {
+			ArtifactoryReader reader = ArtifactoryReader.getByUrl("http://localhost:" + server.getAddress().getPort() + "/");
+			reader.setExecutor(executor);
+			reader.setAsyncTimeoutMillis(0);
+			CompletableFuture<String> running = reader.getProductListReleaseVersionAsync();
+			reader.setAsyncTimeoutMillis(200);
+			try {
+				reader.getProductVersionsAsync("org.jooq:jooq").get(5, TimeUnit.SECONDS);
+				fail();
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof TimeoutException);
+			}
+			assertFalse(running.isDone());
+		} finally {
+			executor.shutdownNow();
+			release.countDown();
+			server.stop(0);
+		}
+	}
+
+	@Test
+	public void testUnchangedMetadataNotDownloaded() throws Exception {
+		File artifactoryFolder = new File(DeployerEngineTest.TEST_DIR, "conditional");
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		AtomicInteger bodies = new AtomicInteger();
+		AtomicInteger notModified = new AtomicInteger();
+		server.createContext("/", exchange -> {
+			File file = new File(artifactoryFolder, exchange.getRequestURI().getPath());
+			if (!file.isFile()) {
+				exchange.sendResponseHeaders(404, -1);
+				exchange.close();
+				return;
+			}
+			String etag = "\"" + file.lastModified() + "-" + file.length() + "\"";
+			exchange.getResponseHeaders().add("ETag", etag);
+			if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				notModified.incrementAndGet();
+				exchange.sendResponseHeaders(304, -1);
+				exchange.close();
+				return;
+			}
+			bodies.incrementAndGet();
+			byte[] content = FileUtils.readFileToByteArray(file);
+			exchange.sendResponseHeaders(200, content.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(content);
+			}
+		});
+		server.start();
+		try {
+			new ArtifactoryWriter(artifactoryFolder).installArtifact("org.jooq", "jooq", "3.1.0", "jar",
+					"dependency content", artifactoryFolder);
+			MetadataCache metadataCache = new MetadataCache(new File(artifactoryFolder, "working"));
+			ArtifactoryReader reader = ArtifactoryReader.getByUrl("http://localhost:"
+					+ server.getAddress().getPort() + "/");
+			reader.setMetadataCache(metadataCache);
+			assertEquals(Collections.singletonList("3.1.0"), reader.getProductVersions("org.jooq:jooq"));
+			assertEquals(1, bodies.get());
+			reader = ArtifactoryReader.getByUrl(reader.toString());
+			reader.setMetadataCache(new MetadataCache(new File(artifactoryFolder, "working")));
+			assertEquals(Collections.singletonList("3.1.0"), reader.getProductVersions("org.jooq:jooq"));
+			assertEquals(1, bodies.get());
+			assertEquals(1, notModified.get());
+			FileUtils.writeStringToFile(new File(artifactoryFolder, "applied-versions"), "3.1.0\n",
+					StandardCharsets.UTF_8);
+			String appliedVersionsUrl = reader.toString() + "applied-versions";
+			assertEquals("3.1.0\n", ArtifactoryReader.readAppliedVersions(appliedVersionsUrl, metadataCache));
+			assertEquals("3.1.0\n", ArtifactoryReader.readAppliedVersions(appliedVersionsUrl, metadataCache));
+			assertEquals(2, bodies.get());
+			assertEquals(2, notModified.get());
+		} finally {
+			server.stop(0);
+			FileUtils.deleteDirectory(artifactoryFolder);
+		}
+	}
+
+	@Test
+	public void testUnauthorizedMetadataNotCached() throws Exception {
+		File artifactoryFolder = new File(DeployerEngineTest.TEST_DIR, "unauthorized");
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", exchange -> {
+			exchange.sendResponseHeaders(401, -1);
+			exchange.close();
+		});
+		server.start();
+		try {
+			NegativeCache negativeCache = new NegativeCache(artifactoryFolder);
+			ArtifactoryReader reader = ArtifactoryReader.getByUrl("http://localhost:"
+					+ server.getAddress().getPort() + "/");
+			reader.setNegativeCache(negativeCache);
+			assertTrue(reader.getProductVersions("org.jooq:jooq").isEmpty());
+			assertTrue(negativeCache.getExpirations().isEmpty());
+		} finally {
+			server.stop(0);
+			FileUtils.deleteDirectory(artifactoryFolder);
+		}
+	}
+
+	@Test
+	public void testLatencyRecordedForRequestsOnly() throws Exception {
+		File artifactoryFolder = new File(DeployerEngineTest.TEST_DIR, "latency");
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		AtomicInteger requests = new AtomicInteger();
+		server.createContext("/", exchange -> {
+			requests.incrementAndGet();
+			File file = new File(artifactoryFolder, exchange.getRequestURI().getPath());
+			if (!file.isFile()) {
+				exchange.sendResponseHeaders(404, -1);
+				exchange.close();
+				return;
+			}
+			byte[] content = FileUtils.readFileToByteArray(file);
+			exchange.sendResponseHeaders(200, content.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(content);
+			}
+		});
+		server.start();
+		try {
+			new ArtifactoryWriter(artifactoryFolder).installArtifact("org.jooq", "jooq", "3.1.0", "jar",
+					"dependency content", artifactoryFolder);
+			RepositoryStats stats = new RepositoryStats(new File(artifactoryFolder, "working"));
+			ArtifactoryReader reader = ArtifactoryReader.getByUrl("http://localhost:"
+					+ server.getAddress().getPort() + "/");
+			reader.setVersionsCache(new VersionsCache(new File(artifactoryFolder, "working")));
+			reader.setRepositoryStats(stats);
+			assertEquals(Collections.singletonList("3.1.0"), reader.getProductVersions("org.jooq:jooq"));
+			assertEquals(1, requests.get());
+			assertTrue(stats.isChanged());
+			assertTrue(stats.getEntries().get(reader.toString()).getLatencyMillis() > 0);
+			stats.save();
+			assertEquals(Collections.singletonList("3.1.0"), reader.getProductVersions("org.jooq:jooq"));
+			assertEquals(1, requests.get());
+			assertFalse(stats.isChanged());
+		} finally {
+			server.stop(0);
+			FileUtils.deleteDirectory(artifactoryFolder);
+		}
+	}
 }
@@ -6,6 +6,7 @@ import org.apache.maven.artifact.repository.metadata.Metadata;
 import org.apache.maven.artifact.repository.metadata.Versioning;
 import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
 import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Writer;
+import org.scm4j.deployer.api.IProduct;
 import org.scm4j.deployer.api.ProductInfo;
 
 import java.io.BufferedInputStream;
@@ -88,6 +89,45 @@ class ArtifactoryWriter {
 		}
 	}
 
+	void installProduct(String groupId, String artifactId, String version, Class<? extends IProduct> productClass) {
+		try {
+			File artifactRoot = new File(artifactoryFolder, Utils.coordsToFolderStructure(groupId, artifactId));
+			File artifactVersionPath = new File(artifactRoot, version);
+			artifactVersionPath.mkdirs();
+			Manifest mf = new Manifest();
+			mf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+			mf.getMainAttributes().put(Attributes.Name.MAIN_CLASS, productClass.getName());
+			new JarOutputStream(new FileOutputStream(new File(artifactVersionPath,
+					Utils.coordsToFileName(artifactId, version, "jar"))), mf).close();
+			File resource = new File(getClass().getClassLoader().getResource(TEST_POMS +
+					Utils.coordsToFileName(artifactId, version, ".pom")).getFile());
+			FileUtils.copyFile(resource, new File(artifactVersionPath, Utils.coordsToFileName(artifactId, version,
+					".pom")));
+			appendMetadata(groupId, artifactId, version, artifactRoot);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	File installArchive(String groupId, String artifactId, String version, String extension, byte[] content) {
+		try {
+			File artifactRoot = new File(artifactoryFolder, Utils.coordsToFolderStructure(groupId, artifactId));
+			File artifactFile = new File(artifactoryFolder, Utils.coordsToRelativeFilePath(groupId, artifactId,
+					version, extension, null));
+			FileUtils.writeByteArrayToFile(artifactFile, content);
+			FileUtils.writeStringToFile(new File(artifactFile.getPath() + ".sha1"),
+					BlobStore.getChecksum(artifactFile), Charset.forName("UTF-8"));
+			FileUtils.writeStringToFile(new File(artifactoryFolder, Utils.coordsToRelativeFilePath(groupId,
+					artifactId, version, ".pom", null)), "<project><modelVersion>4.0.0</modelVersion><groupId>"
+					+ groupId + "</groupId><artifactId>" + artifactId + "</artifactId><version>" + version
+					+ "</version><packaging>" + extension + "</packaging></project>", Charset.forName("UTF-8"));
+			appendMetadata(groupId, artifactId, version, artifactRoot);
+			return artifactFile;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	private void writeArtifact(String artifactId, String version, String extension, String content, File artifactRoot)
 			throws Exception {
 		File artifactVersionPath = new File(artifactRoot, version);
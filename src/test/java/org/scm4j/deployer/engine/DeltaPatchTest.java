@@ -0,0 +1,66 @@
+package org.scm4j.deployer.engine;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scm4j.deployer.engine.exceptions.EDeltaPatch;
+
+import java.io.File;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DeltaPatchTest {
+
+	private final File folder = new File(DeployerEngineTest.TEST_DIR, "delta");
+	private final File base = new File(folder, "base.zip");
+	private final File target = new File(folder, "target.zip");
+	private final File patch = new File(folder, "target.delta");
+	private final File rebuilt = new File(folder, "rebuilt.zip");
+	private byte[] targetContent;
+
+	@Before
+	public void before() throws Exception {
+		Random random = new Random(1);
+		byte[] baseContent = new byte[512 * 1024 + 123];
+		random.nextBytes(baseContent);
+		byte[] inserted = new byte[1000];
+		random.nextBytes(inserted);
+		targetContent = new byte[baseContent.length + inserted.length];
+		System.arraycopy(baseContent, 0, targetContent, 0, 100000);
+		System.arraycopy(inserted, 0, targetContent, 100000, inserted.length);
+		System.arraycopy(baseContent, 100000, targetContent, 100000 + inserted.length, baseContent.length - 100000);
+		FileUtils.writeByteArrayToFile(base, baseContent);
+		FileUtils.writeByteArrayToFile(target, targetContent);
+	}
+
+	@After
+	public void after() throws Exception {
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Test
+	public void testRebuildFromShiftedBase() throws Exception {
+		DeltaPatch.create(base, target, patch);
+		assertTrue(patch.length() < target.length() / 20);
+		DeltaPatch.apply(base, patch, rebuilt);
+		assertArrayEquals(targetContent, FileUtils.readFileToByteArray(rebuilt));
+	}
+
+	@Test
+	public void testWrongBaseDetected() throws Exception {
+		DeltaPatch.create(base, target, patch);
+		byte[] corrupted = FileUtils.readFileToByteArray(base);
+		corrupted[10] ^= 1;
+		FileUtils.writeByteArrayToFile(base, corrupted);
+		try {
+			DeltaPatch.apply(base, patch, rebuilt);
+			fail();
+		} catch (EDeltaPatch e) {
+			//
+		}
+	}
+}
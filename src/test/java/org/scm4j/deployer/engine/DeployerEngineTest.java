@@ -1,7 +1,9 @@
 package org.scm4j.deployer.engine;
 
+import com.google.gson.Gson;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.aether.RepositorySystemSession;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -10,26 +12,43 @@ import org.junit.Test;
 import org.scm4j.deployer.api.DeploymentResult;
 import org.scm4j.deployer.api.IDeploymentContext;
 import org.scm4j.deployer.api.ProductInfo;
+import org.scm4j.deployer.api.ProductStructure;
 import org.scm4j.deployer.engine.deployers.OkDeployer;
+import org.scm4j.deployer.engine.exceptions.EIncompatibleApiVersion;
 import org.scm4j.deployer.engine.exceptions.EProductListEntryNotFound;
 import org.scm4j.deployer.engine.exceptions.EProductNotFound;
+import org.scm4j.deployer.engine.products.SuiteProduct;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
 import static org.scm4j.deployer.api.DeploymentResult.ALREADY_INSTALLED;
 import static org.scm4j.deployer.api.DeploymentResult.OK;
 
@@ -43,6 +62,8 @@ public class DeployerEngineTest {
 	private static final String TEST_JOOQ_GROUP_ID = "org.jooq";
 	private static final String TEST_AXIS_GROUP_ID = "org.apache.axis";
 	private static final String UNTILL_ARTIFACT_ID = "unTill";
+	private static final String SUITE_ARTIFACT_ID = "suite";
+	private static final String DELTA_ARTIFACT_ID = "delta";
 	private static final String RELATIVE_UNTILL_PATH = Utils.coordsToRelativeFilePath(TEST_UNTILL_GROUP_ID,
 			UNTILL_ARTIFACT_ID, "123.4", "jar", null);
 	private static final AITestEnvironment env = new AITestEnvironment();
@@ -69,6 +90,7 @@ public class DeployerEngineTest {
 				TEST_UBL_22_2_CONTENT, env.getArtifactory1Folder());
 		aw.installArtifact(TEST_JOOQ_GROUP_ID, "jooq", "3.1.0", "jar",
 				TEST_DEP_CONTENT, env.getArtifactory1Folder());
+		aw.installProduct(TEST_UNTILL_GROUP_ID, SUITE_ARTIFACT_ID, "1.0", SuiteProduct.class);
 		aw = new ArtifactoryWriter(env.getArtifactory2Folder());
 		aw.installArtifact(TEST_UNTILL_GROUP_ID, UNTILL_ARTIFACT_ID, "123.4", "jar",
 				"ProductStructureDataLoader", env.getArtifactory1Folder());
@@ -98,6 +120,34 @@ public class DeployerEngineTest {
 		assertEquals(2, versions.size());
 	}
 
+	@Test
+	public void listProductVersionsDuringRefresh() throws Exception {
+		DeployerEngine de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
+		de.listProducts();
+		ProductList productList = de.getDownloader().getProductList();
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Thread refresh = new Thread(() -> {
+			synchronized (productList) {
+				locked.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		refresh.start();
+		try {
+			locked.await();
+			assertEquals(2, CompletableFuture.supplyAsync(() -> de.listProductVersions(UNTILL_ARTIFACT_ID))
+					.get(5, TimeUnit.SECONDS).size());
+		} finally {
+			release.countDown();
+			refresh.join();
+		}
+	}
+
 	@Test
 	public void downloadUnknownProduct() {
 		DeployerEngine de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
@@ -222,6 +272,18 @@ public class DeployerEngineTest {
 		assertEquals(refreshProducts, Collections.singleton(UNTILL_ARTIFACT_ID));
 	}
 
+	@Test
+	public void refreshProductsDropsCachedVersions() {
+		DeployerEngine de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
+		de.listProducts();
+		VersionsCache versionsCache = de.getDownloader().getVersionsCache();
+		de.getDownloader().getProductList().getRepos().forEach(repo -> versionsCache.put(repo.toString(),
+				TEST_UNTILL_GROUP_ID + ":" + UNTILL_ARTIFACT_ID, ProductMetadata.EMPTY));
+		de.refreshProducts();
+		assertEquals(new HashSet<>(Arrays.asList("123.4", "124.5")),
+				de.listProductVersions(UNTILL_ARTIFACT_ID).keySet());
+	}
+
 	@Test
 	public void downloadAndRefreshProductsVersions() throws Exception {
 		DeployerEngine de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
@@ -267,6 +329,114 @@ public class DeployerEngineTest {
 		assertEquals(de.listProductVersions(UNTILL_ARTIFACT_ID).keySet(), Collections.emptySet());
 		FileUtils.moveFileToDirectory(new File(env.getEnvFolder(), ArtifactoryReader.METADATA_FILE_NAME), metadataFolder1, false);
 		FileUtils.moveFileToDirectory(new File(env.getArtifactory1Folder(), ArtifactoryReader.METADATA_FILE_NAME), metadataFolder2, false);
+		testSet.add("123.4");
+		testSet.add("124.5");
+		assertEquals(de.refreshProductVersions(UNTILL_ARTIFACT_ID).keySet(), testSet);
+	}
+
+	@Test
+	public void refreshUnchangedProductVersionsIncrementally() throws Exception {
+		DeployerEngine de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
+		de.listProducts();
+		ProductList productList = de.getDownloader().getProductList();
+		File versionsJson = productList.getVersionsJson();
+		File versionsStateJson = new File(versionsJson.getParentFile(), ProductList.VERSIONS_STATE_FILE_NAME);
+		assertTrue(versionsStateJson.exists());
+		long lastModified = versionsJson.lastModified() - 60000;
+		assertTrue(versionsStateJson.setLastModified(lastModified));
+		assertTrue(versionsJson.setLastModified(lastModified));
+		de.refreshProductVersions(UNTILL_ARTIFACT_ID);
+		productList.downloadProductsVersions();
+		assertEquals(lastModified, versionsJson.lastModified());
+		assertEquals(lastModified, versionsStateJson.lastModified());
+		Map<String, Map<String, Boolean>> versions = Utils.readJson(versionsJson,
+				productList.getVersionsJsonType());
+		versions.get(UNTILL_ARTIFACT_ID).remove("124.5");
+		Utils.writeJson(versions, versionsJson);
+		assertEquals(new HashSet<>(Arrays.asList("123.4", "124.5")),
+				de.refreshProductVersions(UNTILL_ARTIFACT_ID).keySet());
+	}
+
+	@Test
+	public void refreshProductsVersionsWithPartialFailure() {
+		DeployerEngine de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
+		de.listProducts();
+		ProductList productList = de.getDownloader().getProductList();
+		Map<String, ProductInfo> products = new HashMap<>(productList.getProducts());
+		products.put("broken", new ProductInfo(TEST_UNTILL_GROUP_ID + ":" + UNTILL_ARTIFACT_ID,
+				new File(env.getEnvFolder(), "missing-applied-versions").toURI().toString(), false));
+		Utils.writeJson(new ProductListEntry(productList.getProductListEntry().getRepositories(), products),
+				productList.getLocalProductList());
+		de.listProducts();
+		productList.downloadProductsVersions();
+		assertEquals(new HashSet<>(Arrays.asList("123.4", "124.5")), de.listProductVersions(UNTILL_ARTIFACT_ID).keySet());
+		assertEquals(Collections.singleton("broken"), de.getVersionsErrors().keySet());
+		assertTrue(productList.readProductVersions("broken").isEmpty());
+	}
+
+	@Test
+	public void refreshProductCatalogInBackground() throws Exception {
+		DeployerEngine de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
+		de.listProducts();
+		ProductList productList = de.getDownloader().getProductList();
+		ProductCatalog catalog = productList.getCatalog();
+		de.listProducts();
+		assertSame(catalog, productList.getCatalog());
+		File remoteProductList = new File(env.getArtifactory1Folder(), Utils.coordsToRelativeFilePath(
+				ProductList.PRODUCT_LIST_GROUP_ID, ProductList.PRODUCT_LIST_ARTIFACT_ID, catalog.getReleaseVersion(),
+				".json", null));
+		String remoteContent = FileUtils.readFileToString(remoteProductList, Charset.forName("UTF-8"));
+		FileUtils.writeStringToFile(remoteProductList, "{\"products\": ", Charset.forName("UTF-8"));
+		try {
+			de.refreshProducts();
+			fail();
+		} catch (EProductListEntryNotFound e) {
+			//
+		}
+		assertSame(catalog, productList.getCatalog());
+		assertEquals(catalog.getProducts().keySet(), de.listProducts().keySet());
+		Map<String, ProductInfo> products = new HashMap<>(catalog.getProducts());
+		products.put("some", new ProductInfo("eu.untill:some", "", false));
+		Utils.writeJson(new ProductListEntry(catalog.getEntry().getRepositories(), products), remoteProductList);
+		try {
+			de.scheduleProductListRefresh(0, 1, TimeUnit.HOURS);
+			for (int i = 0; i < 100 && productList.getCatalog() == catalog; i++)
+				Thread.sleep(100);
+			ProductCatalog refreshed = productList.getCatalog();
+			assertTrue(refreshed.getVersion() > catalog.getVersion());
+			assertEquals(products.keySet(), de.listProducts().keySet());
+			Utils.writeJson(catalog.getEntry(), refreshed.getProductListFile());
+			de.listProducts();
+			assertSame(refreshed, productList.getCatalog());
+		} finally {
+			de.close();
+			FileUtils.writeStringToFile(remoteProductList, remoteContent, Charset.forName("UTF-8"));
+		}
+	}
+
+	@Test
+	public void refreshProductsVersionsFromManifest() throws Exception {
+		DeployerEngine de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
+		de.listProducts();
+		File manifest = new File(env.getArtifactory1Folder(), Utils.coordsToRelativeFilePath(
+				ProductList.PRODUCT_LIST_GROUP_ID, ProductList.VERSIONS_MANIFEST_ARTIFACT_ID,
+				de.getDownloader().getProductList().getCatalog().getReleaseVersion(),
+				ProductList.VERSIONS_MANIFEST_EXTENSION, null));
+		manifest.getParentFile().mkdirs();
+		try {
+			try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(manifest)),
+					Charset.forName("UTF-8"))) {
+				new Gson().toJson(Collections.singletonMap(UNTILL_ARTIFACT_ID,
+						Collections.singletonMap("125.0", true)), writer);
+			}
+			de.refreshProducts();
+			assertEquals(Collections.singletonMap("125.0", true), de.refreshProductVersions(UNTILL_ARTIFACT_ID));
+		} finally {
+			FileUtils.deleteDirectory(manifest.getParentFile().getParentFile());
+		}
+		de.refreshProducts();
+		assertEquals(new HashSet<>(Arrays.asList("123.4", "124.5")),
+				de.refreshProductVersions(UNTILL_ARTIFACT_ID).keySet());
 	}
 
 	@Test
@@ -279,6 +449,102 @@ public class DeployerEngineTest {
 		assertFalse(ctx.getArtifacts().containsKey("axis"));
 	}
 
+	@Test
+	public void collectDeploymentContextInParallel() {
+		DeployerEngine de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
+		de.setResolveThreads(4);
+		de.download(UNTILL_ARTIFACT_ID, "123.4");
+		IDeploymentContext ctx = de.getDownloader().getDepCtx().get("UBL22.2");
+		assertEquals(ctx.getMainArtifact(), "UBL");
+		assertEquals(Collections.singleton("UBL"), ctx.getArtifacts().keySet());
+		ctx = de.getDownloader().getDepCtx().get("unTill123.4");
+		assertEquals(ctx.getMainArtifact(), "unTill");
+		assertTrue(ctx.getArtifacts().containsKey("unTill"));
+	}
+
+	@Test
+	public void downloadDependentProductsInParallel() {
+		DeployerEngine de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
+		de.setResolveThreads(4);
+		de.listProducts();
+		Map<String, ProductInfo> products = new HashMap<>();
+		products.put(UNTILL_ARTIFACT_ID, new ProductInfo(TEST_UNTILL_GROUP_ID + ":" + UNTILL_ARTIFACT_ID, "", false));
+		products.put(SUITE_ARTIFACT_ID, new ProductInfo(TEST_UNTILL_GROUP_ID + ":" + SUITE_ARTIFACT_ID, "", false));
+		Utils.writeJson(new ProductListEntry(Arrays.asList(env.getArtifactory1Url(), env.getArtifactory2Url()),
+				products), de.getDownloader().getProductList().getLocalProductList());
+		Map<String, DownloadResult> results = de.downloadWithDependents(SUITE_ARTIFACT_ID, "1.0");
+		String suite = TEST_UNTILL_GROUP_ID + ":" + SUITE_ARTIFACT_ID + ":jar:1.0";
+		String untill = TEST_UNTILL_GROUP_ID + ":" + UNTILL_ARTIFACT_ID + ":jar:124.5";
+		String missing = TEST_UNTILL_GROUP_ID + ":missing:jar:1.0";
+		assertEquals(new HashSet<>(Arrays.asList(suite, untill, missing)), results.keySet());
+		assertTrue(results.get(suite).isOk());
+		assertTrue(results.get(untill).isOk());
+		assertTrue(results.get(missing).getError() instanceof EProductNotFound);
+		Downloader downloader = de.getDownloader();
+		assertEquals(suite, downloader.getProductArtifact().toString());
+		assertTrue(downloader.getProduct() instanceof SuiteProduct);
+		assertTrue(new File(downloader.getPortableRepository(), Utils.coordsToRelativeFilePath(
+				TEST_UNTILL_GROUP_ID, UNTILL_ARTIFACT_ID, "124.5", "jar", null)).exists());
+		assertNotNull(downloader.getDepCtx().get("UBL22.2"));
+		assertNotNull(downloader.getDepCtx().get("unTill124.5"));
+		assertNotNull(downloader.getDepCtx().get("suite1.0"));
+		assertTrue(downloader.getExecutor().getLargestPoolSize() <= 4);
+		de.close();
+	}
+
+	@Test
+	public void reuseRepositorySessions() throws Exception {
+		DeployerEngine de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
+		de.download(UNTILL_ARTIFACT_ID, "123.4");
+		Map<File, RepositorySystemSession> sessions = de.getDownloader().getSessions();
+		assertEquals(1, sessions.size());
+		RepositorySystemSession session = sessions.values().iterator().next();
+		de.download(UNTILL_ARTIFACT_ID, "124.5");
+		assertSame(session, sessions.values().iterator().next());
+		Map<String, ProductInfo> map = new HashMap<>();
+		map.put(UNTILL_ARTIFACT_ID, new ProductInfo(TEST_UNTILL_GROUP_ID + ":" + UNTILL_ARTIFACT_ID, "", true));
+		ProductListEntry entry = new ProductListEntry(Collections.singletonList(env.getArtifactory2Url()), map);
+		Utils.writeJson(entry, de.getDownloader().getProductList().getLocalProductList());
+		FileUtils.forceDelete(new File(de.getDownloader().getWorkingRepository(), Utils.coordsToRelativeFilePath(
+				TEST_UNTILL_GROUP_ID, UNTILL_ARTIFACT_ID, "123.4", DependencyLock.LOCK_FILE_EXTENSION, null)));
+		de.download(UNTILL_ARTIFACT_ID, "123.4");
+		assertNotSame(session, sessions.values().iterator().next());
+	}
+
+	@Test
+	public void resolveFromLockFile() throws Exception {
+		DeployerEngine de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
+		de.download(UNTILL_ARTIFACT_ID, "123.4");
+		File lockFile = new File(de.getDownloader().getWorkingRepository(), Utils.coordsToRelativeFilePath(
+				TEST_UNTILL_GROUP_ID, UNTILL_ARTIFACT_ID, "123.4", DependencyLock.LOCK_FILE_EXTENSION, null));
+		assertTrue(lockFile.exists());
+		String lockContent = FileUtils.readFileToString(lockFile, "UTF-8");
+		assertTrue(lockContent.contains(TEST_UNTILL_GROUP_ID + ":" + ublArtifactId + ":war:22.2"));
+		de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
+		de.download(UNTILL_ARTIFACT_ID, "123.4");
+		assertTrue(de.getDownloader().getSessions().isEmpty());
+		IDeploymentContext ctx = de.getDownloader().getDepCtx().get("UBL22.2");
+		assertEquals(new File(de.getDownloader().getWorkingRepository(), Utils.coordsToRelativeFilePath(
+				TEST_UNTILL_GROUP_ID, ublArtifactId, "22.2", "war", null)), ctx.getArtifacts().get(ublArtifactId));
+		FileUtils.forceDelete(ctx.getArtifacts().get(ublArtifactId));
+		de.download(UNTILL_ARTIFACT_ID, "123.4");
+		assertTrue(de.getDownloader().getDepCtx().get("UBL22.2").getArtifacts().get(ublArtifactId).exists());
+	}
+
+	@Test
+	public void cacheProductClassLoaders() {
+		DeployerEngine de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
+		de.download(UNTILL_ARTIFACT_ID, "123.4");
+		de.download(UNTILL_ARTIFACT_ID, "123.4");
+		de.download(UNTILL_ARTIFACT_ID, "124.5");
+		ClassLoaderCache cache = de.getDownloader().getLoaderCache();
+		assertEquals(2, cache.size());
+		assertTrue(cache.contains(TEST_UNTILL_GROUP_ID + ":" + UNTILL_ARTIFACT_ID + ":jar:123.4"));
+		assertNull(de.getDownloader().getLoader());
+		de.close();
+		assertEquals(0, cache.size());
+	}
+
 	@Test
 	public void copyElementsFromPortableToWorkingFolder() throws Exception {
 		DeployerEngine de = new DeployerEngine(env.getEnvFolder(), env.getBaseTestFolder(), env.getArtifactory1Url());
@@ -289,6 +555,161 @@ public class DeployerEngineTest {
 		FileUtils.contentEquals(untillFile, localUntillFile);
 	}
 
+	@Test
+	public void linkPortableArtifactsToWorkingFolder() throws Exception {
+		DeployerEngine de = new DeployerEngine(env.getEnvFolder(), env.getBaseTestFolder(), env.getArtifactory1Url());
+		de.download(UNTILL_ARTIFACT_ID, "123.4");
+		de.download(UNTILL_ARTIFACT_ID, "123.4");
+		File untillFile = new File(de.getDownloader().getPortableRepository(), RELATIVE_UNTILL_PATH);
+		File localUntillFile = new File(de.getDownloader().getWorkingRepository(), RELATIVE_UNTILL_PATH);
+		File blob = de.getDownloader().getBlobStore().getBlob(BlobStore.getChecksum(untillFile));
+		assertTrue(blob.exists());
+		assertTrue(Files.isSameFile(localUntillFile.toPath(), blob.toPath()));
+		assertTrue(Files.isSameFile(untillFile.toPath(), blob.toPath()));
+	}
+
+	@Test
+	public void shareDownloadedArtifactsBetweenRepositories() throws Exception {
+		DeployerEngine working = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
+		working.download(UNTILL_ARTIFACT_ID, "123.4");
+		File workingUntillFile = new File(working.getDownloader().getWorkingRepository(), RELATIVE_UNTILL_PATH);
+		working.close();
+		DeployerEngine portable = new DeployerEngine(new File(env.getEnvFolder(), "portable"), env.getEnvFolder(),
+				env.getArtifactory1Url());
+		portable.download(UNTILL_ARTIFACT_ID, "123.4");
+		File portableUntillFile = new File(portable.getDownloader().getPortableRepository(), RELATIVE_UNTILL_PATH);
+		assertFalse(portableUntillFile.equals(workingUntillFile));
+		File blob = portable.getDownloader().getBlobStore().getBlob(BlobStore.getChecksum(workingUntillFile));
+		assertTrue(Files.isSameFile(workingUntillFile.toPath(), blob.toPath()));
+		assertTrue(Files.isSameFile(portableUntillFile.toPath(), blob.toPath()));
+		ProductIndex index = new ProductIndex(env.getEnvFolder());
+		assertEquals(BlobStore.getChecksum(blob),
+				index.getEntries().get(portableUntillFile.getAbsolutePath()).getChecksum());
+		portable.close();
+	}
+
+	@Test
+	public void applyDeltaUpdates() throws Exception {
+		ArtifactoryWriter aw = new ArtifactoryWriter(env.getArtifactory1Folder());
+		byte[] content = new byte[64 * 1024];
+		new Random(1).nextBytes(content);
+		File v10 = aw.installArchive(TEST_UNTILL_GROUP_ID, DELTA_ARTIFACT_ID, "1.0", "zip", content);
+		content[100]++;
+		File v11 = aw.installArchive(TEST_UNTILL_GROUP_ID, DELTA_ARTIFACT_ID, "1.1", "zip", content);
+		DeltaPatch.create(v10, v11, getRemoteDelta("1.1", "1.0"));
+		content[200]++;
+		File v12 = aw.installArchive(TEST_UNTILL_GROUP_ID, DELTA_ARTIFACT_ID, "1.2", "zip", content);
+		content[300]++;
+		File forged = new File(env.getEnvFolder(), "forged.zip");
+		FileUtils.writeByteArrayToFile(forged, content);
+		DeltaPatch.create(v11, forged, getRemoteDelta("1.2", "1.1"));
+		File hidden = new File(env.getEnvFolder(), "hidden.zip");
+		Downloader downloader = new Downloader(env.getEnvFolder(), env.getEnvFolder(), env.getArtifactory1Url());
+		downloader.getProductList().readFromProductList();
+		downloader.setDeltaUpdates(true);
+		resolveComponent(downloader, "1.0");
+		FileUtils.moveFile(v11, hidden);
+		try {
+			resolveComponent(downloader, "1.1");
+		} finally {
+			FileUtils.moveFile(hidden, v11);
+		}
+		assertTrue(FileUtils.contentEquals(v11, getLocalDeltaArtifact(downloader, "1.1")));
+		resolveComponent(downloader, "1.2");
+		assertTrue(FileUtils.contentEquals(v12, getLocalDeltaArtifact(downloader, "1.2")));
+		downloader.close();
+		File fullFolder = new File(env.getEnvFolder(), "full");
+		Downloader full = new Downloader(fullFolder, fullFolder, env.getArtifactory1Url());
+		full.getProductList().readFromProductList();
+		resolveComponent(full, "1.0");
+		FileUtils.moveFile(v11, hidden);
+		try {
+			resolveComponent(full, "1.1");
+			fail();
+		} catch (RuntimeException e) {
+			assertFalse(getLocalDeltaArtifact(full, "1.1").exists());
+		} finally {
+			FileUtils.moveFile(hidden, v11);
+			full.close();
+		}
+	}
+
+	private File getRemoteDelta(String version, String baseVersion) {
+		return new File(env.getArtifactory1Folder(), Utils.coordsToRelativeFilePath(TEST_UNTILL_GROUP_ID,
+				DELTA_ARTIFACT_ID, version, DeltaPatch.EXTENSION, DeltaPatch.getClassifier(null, baseVersion)));
+	}
+
+	private File getLocalDeltaArtifact(Downloader downloader, String version) {
+		return new File(downloader.getPortableRepository(), Utils.coordsToRelativeFilePath(TEST_UNTILL_GROUP_ID,
+				DELTA_ARTIFACT_ID, version, "zip", null));
+	}
+
+	private void resolveComponent(Downloader downloader, String version) {
+		String coords = TEST_UNTILL_GROUP_ID + ":" + DELTA_ARTIFACT_ID + ":zip:" + version;
+		downloader.loadProductDependency(() -> ProductStructure.create(TEST_DIR).addComponent(coords).parent(), null,
+				downloader.getPortableRepository());
+	}
+
+	@Test
+	public void checkApiCompatibilityBeforeDownload() throws Exception {
+		Downloader downloader = spy(new Downloader(env.getEnvFolder(), env.getEnvFolder(), env.getArtifactory1Url()));
+		doReturn("0.0.1").when(downloader).readDeployerApiVersion();
+		downloader.getProductList().readFromProductList();
+		for (int i = 0; i < 2; i++) {
+			try {
+				downloader.getProductFile(TEST_UNTILL_GROUP_ID + ":" + UNTILL_ARTIFACT_ID + ":jar:124.5");
+				fail();
+			} catch (EIncompatibleApiVersion e) {
+				//
+			}
+		}
+		assertTrue(new File(downloader.getPortableRepository(), Utils.coordsToRelativeFilePath(TEST_UNTILL_GROUP_ID,
+				UNTILL_ARTIFACT_ID, "124.5", "pom", null)).exists());
+		assertFalse(new File(downloader.getPortableRepository(), Utils.coordsToRelativeFilePath(TEST_UNTILL_GROUP_ID,
+				UNTILL_ARTIFACT_ID, "124.5", "jar", null)).exists());
+		assertFalse(new File(downloader.getPortableRepository(), Utils.coordsToRelativeFilePath(TEST_UNTILL_GROUP_ID,
+				ublArtifactId, "22.2", "war", null)).exists());
+		assertEquals(Collections.singletonMap(TEST_UNTILL_GROUP_ID + ":" + UNTILL_ARTIFACT_ID + ":jar:124.5", false),
+				downloader.getApiCompatibility());
+		downloader.close();
+	}
+
+	@Test
+	public void indexProductMetadata() throws Exception {
+		DeployerEngine de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
+		de.download(UNTILL_ARTIFACT_ID, "124.5");
+		File untillFile = new File(de.getDownloader().getPortableRepository(), Utils.coordsToRelativeFilePath(
+				TEST_UNTILL_GROUP_ID, UNTILL_ARTIFACT_ID, "124.5", "jar", null));
+		assertTrue(new File(env.getEnvFolder(), ProductIndex.INDEX_FILE_NAME).exists());
+		ProductIndex index = new ProductIndex(env.getEnvFolder());
+		ProductIndex.Entry entry = index.getEntries().get(untillFile.getAbsolutePath());
+		assertEquals(Utils.getExportedClassName(untillFile), entry.getMainClass());
+		assertEquals(Collections.emptyList(), index.getDependentProducts(untillFile));
+		assertFalse(index.isChanged());
+		assertTrue(untillFile.setLastModified(untillFile.lastModified() - 60000));
+		assertNull(index.getDependentProducts(untillFile));
+		assertTrue(index.isChanged());
+		de.close();
+	}
+
+	@Test
+	public void prefetchNewestAppliedVersion() {
+		DeployerEngine de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
+		assertSame(de.getDownloader(), de.getPrefetcher().getDownloader());
+		assertTrue(de.prefetch().isEmpty());
+		assertEquals(OK, de.deploy(UNTILL_ARTIFACT_ID, "123.4"));
+		int priority = Thread.currentThread().getPriority();
+		Map<String, String> prefetched = de.prefetch();
+		assertEquals(priority, Thread.currentThread().getPriority());
+		assertEquals(Collections.singletonMap(UNTILL_ARTIFACT_ID, "124.5"), prefetched);
+		assertTrue(new File(de.getDownloader().getWorkingRepository(), Utils.coordsToRelativeFilePath(
+				TEST_UNTILL_GROUP_ID, UNTILL_ARTIFACT_ID, "124.5", "jar", null)).exists());
+		assertTrue(new File(de.getDownloader().getWorkingRepository(), Utils.coordsToRelativeFilePath(
+				TEST_UNTILL_GROUP_ID, ublArtifactId, "22.2", "war", null)).exists());
+		assertEquals(OK, de.deploy(UNTILL_ARTIFACT_ID, "124.5"));
+		de.close();
+	}
+
 	@Test
 	public void deploy() {
 		DeployerEngine de = new DeployerEngine(null, env.getEnvFolder(), env.getArtifactory1Url());
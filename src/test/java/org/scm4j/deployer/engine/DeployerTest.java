@@ -132,6 +132,7 @@ public class DeployerTest {
 		Map<String, ProductInfo> products = new HashMap<>();
 		products.put("", new ProductInfo("eu.untill:UBL", "", false));
 		when(pl.getProducts()).thenReturn(products);
+		when(pl.getSimpleName("eu.untill:UBL")).thenReturn("");
 		when(downloader.getProductList()).thenReturn(pl);
 		when(downloader.getProduct()).thenReturn(new OkProduct());
 		DeployedProduct prod = createDeployedProduct();
@@ -0,0 +1,104 @@
+package org.scm4j.deployer.engine;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scm4j.deployer.api.IProduct;
+import org.scm4j.deployer.api.IProductStructure;
+import org.scm4j.deployer.engine.products.OkProduct;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DownloadCoordinatorTest {
+
+	private static final String A = "eu.untill:a:jar:1.0";
+	private static final String B = "eu.untill:b:jar:1.0";
+	private static final String C = "eu.untill:c:jar:1.0";
+	private static final String D = "eu.untill:d:jar:1.0";
+	private final Map<String, List<String>> dependents = new HashMap<>();
+	private final Map<String, AtomicInteger> productLoads = new ConcurrentHashMap<>();
+	private final Map<String, AtomicInteger> componentLoads = new ConcurrentHashMap<>();
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicInteger maxRunning = new AtomicInteger();
+	private final File repository = new File(DeployerEngineTest.TEST_DIR, "repository");
+	private final ThreadPoolExecutor executor = AsyncTasks.newExecutor("test-resolver-%d", 4);
+	private Downloader downloader;
+
+	private static IProduct newProduct(List<String> dependentProducts) {
+		return new IProduct() {
+			@Override
+			public IProductStructure getProductStructure() {
+				return new OkProduct().getProductStructure();
+			}
+
+			@Override
+			public List<String> getDependentProducts() {
+				return dependentProducts;
+			}
+		};
+	}
+
+	@Before
+	public void before() {
+		dependents.put(A, Arrays.asList("eu.untill:b:1.0", "eu.untill:c:1.0"));
+		dependents.put(B, Collections.singletonList("eu.untill:d:1.0"));
+		dependents.put(C, Collections.singletonList("eu.untill:d:jar:1.0"));
+		dependents.put(D, Collections.emptyList());
+		downloader = mock(Downloader.class);
+		when(downloader.getExecutor()).thenReturn(executor);
+		when(downloader.loadProduct(any(Artifact.class))).thenAnswer(invocation -> {
+			Artifact artifact = (Artifact) invocation.getArguments()[0];
+			String coords = artifact.toString();
+			productLoads.computeIfAbsent(coords, key -> new AtomicInteger()).incrementAndGet();
+			return new Downloader.LoadedProduct(artifact, newProduct(dependents.get(coords)), null,
+					new File(repository, coords), repository);
+		});
+		doAnswer(invocation -> {
+			String coords = invocation.getArguments()[1].toString();
+			componentLoads.computeIfAbsent(coords, key -> new AtomicInteger()).incrementAndGet();
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			Thread.sleep(200);
+			running.decrementAndGet();
+			if (coords.equals(C))
+				throw new RuntimeException("component of c not found");
+			return null;
+		}).when(downloader).loadProductDependency(any(IProduct.class), any(Artifact.class), any(File.class));
+	}
+
+	@After
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testSharedDependentDownloadedOnceInParallel() {
+		Map<String, DownloadResult> results = new DownloadCoordinator(downloader).download("eu.untill:a:1.0");
+		assertEquals(Arrays.asList(A, B, C, D), Arrays.asList(results.keySet().toArray()));
+		for (String coords : Arrays.asList(A, B, C, D)) {
+			assertEquals(1, productLoads.get(coords).get());
+			assertEquals(1, componentLoads.get(coords).get());
+		}
+		assertTrue(maxRunning.get() > 1);
+		assertTrue(results.get(A).isOk());
+		assertTrue(results.get(D).isOk());
+		assertFalse(results.get(C).isOk());
+		assertEquals("component of c not found", results.get(C).getError().getMessage());
+	}
+}
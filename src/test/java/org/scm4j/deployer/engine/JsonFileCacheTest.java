@@ -0,0 +1,46 @@
+package org.scm4j.deployer.engine;
+
+import com.google.gson.reflect.TypeToken;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JsonFileCacheTest {
+
+	private final File folder = new File(DeployerEngineTest.TEST_DIR, "json-cache");
+	private final File file = new File(folder, "state.json");
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Test
+	public void testReloadOnlyChangedFile() throws Exception {
+		folder.mkdirs();
+		JsonFileCache<String> cache = new JsonFileCache<>(file, new TypeToken<Map<String, String>>() {
+		}.getType());
+		assertTrue(cache.read().isEmpty());
+		Utils.writeJson(Collections.singletonMap("a", "1"), file);
+		Map<String, String> content = cache.read();
+		assertEquals(Collections.singletonMap("a", "1"), content);
+		assertSame(content, cache.read());
+		Map<String, String> changed = new HashMap<>();
+		changed.put("a", "1");
+		changed.put("b", "22");
+		Utils.writeJson(changed, file);
+		assertEquals(changed, cache.read());
+		cache.write(Collections.singletonMap("c", "3"));
+		assertEquals(Collections.singletonMap("c", "3"), cache.read());
+		assertEquals(Collections.singletonMap("c", "3"), Utils.readJson(file, cache.getType()));
+	}
+}
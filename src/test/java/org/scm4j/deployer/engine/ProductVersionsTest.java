@@ -0,0 +1,35 @@
+package org.scm4j.deployer.engine;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ProductVersionsTest {
+
+	@Test
+	public void testSortedQueries() {
+		Map<String, Boolean> map = new HashMap<>();
+		map.put("1.10", false);
+		map.put("1.2", true);
+		map.put("1.9", true);
+		map.put("1.10-SNAPSHOT", true);
+		map.put("2.0", false);
+		ProductVersions versions = new ProductVersions(map);
+		assertEquals(Arrays.asList("1.2", "1.9", "1.10-SNAPSHOT", "1.10", "2.0"), versions.getVersions());
+		assertEquals(Arrays.asList("1.2", "1.9", "1.10-SNAPSHOT", "1.10", "2.0"),
+				Arrays.asList(versions.toMap().keySet().toArray()));
+		assertEquals("1.10-SNAPSHOT", versions.getNewestApplied());
+		assertEquals("1.10-SNAPSHOT", versions.getNewestAppliedNewerThan("1.2"));
+		assertNull(versions.getNewestAppliedNewerThan("1.10-SNAPSHOT"));
+		assertEquals(Arrays.asList("1.10", "2.0"), versions.getNewerThan("1.10-SNAPSHOT"));
+		assertEquals(Collections.emptyList(), versions.getNewerThan("3"));
+		assertEquals(versions.getVersions(), versions.getNewerThan("1.0"));
+		assertNull(ProductVersions.EMPTY.getNewestApplied());
+	}
+}
@@ -0,0 +1,59 @@
+package org.scm4j.deployer.engine;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RepositoryStatsTest {
+
+	private static final String SLOW = "http://slow.example.com/";
+	private static final String FAST = "http://fast.example.com/";
+	private static final String BROKEN = "http://broken.example.com/";
+	private final File workingFolder = new File(DeployerEngineTest.TEST_DIR, "stats");
+
+	@After
+	public void after() throws Exception {
+		FileUtils.deleteDirectory(workingFolder);
+	}
+
+	@Test
+	public void testRankByLatencyAndThroughput() {
+		RepositoryStats stats = new RepositoryStats(workingFolder);
+		stats.recordLatency(SLOW, 500);
+		stats.recordLatency(FAST, 50);
+		stats.recordTransfer(SLOW, 10 * 1024 * 1024, 10000);
+		stats.recordTransfer(FAST, 10 * 1024 * 1024, 1000);
+		assertEquals(Arrays.asList(FAST, SLOW), stats.rank(Arrays.asList(SLOW, FAST), Function.identity()));
+	}
+
+	@Test
+	public void testFailedRepositoryRankedLast() {
+		RepositoryStats stats = new RepositoryStats(workingFolder);
+		stats.recordLatency(BROKEN, 10);
+		stats.recordLatency(SLOW, 500);
+		stats.recordFailure(BROKEN);
+		List<String> ranked = stats.rank(Arrays.asList(BROKEN, SLOW), Function.identity());
+		assertEquals(Arrays.asList(SLOW, BROKEN), ranked);
+		stats.recordLatency(BROKEN, 10);
+		assertEquals(Arrays.asList(BROKEN, SLOW), stats.rank(Arrays.asList(SLOW, BROKEN), Function.identity()));
+	}
+
+	@Test
+	public void testStatsPersisted() {
+		RepositoryStats stats = new RepositoryStats(workingFolder);
+		stats.recordLatency(SLOW, 500);
+		stats.recordLatency(FAST, 50);
+		stats.save();
+		assertTrue(new File(workingFolder, RepositoryStats.STATS_FILE_NAME).exists());
+		stats = new RepositoryStats(workingFolder);
+		assertEquals(Arrays.asList(FAST, SLOW), stats.rank(Arrays.asList(SLOW, FAST), Function.identity()));
+	}
+}
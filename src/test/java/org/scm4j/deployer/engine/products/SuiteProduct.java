@@ -0,0 +1,20 @@
+package org.scm4j.deployer.engine.products;
+
+import org.scm4j.deployer.api.IProduct;
+import org.scm4j.deployer.api.IProductStructure;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class SuiteProduct implements IProduct {
+
+	@Override
+	public IProductStructure getProductStructure() {
+		return new OkProduct().getProductStructure();
+	}
+
+	@Override
+	public List<String> getDependentProducts() {
+		return Arrays.asList("eu.untill:unTill:124.5", "eu.untill:missing:1.0");
+	}
+}
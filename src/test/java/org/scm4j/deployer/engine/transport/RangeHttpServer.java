@@ -0,0 +1,148 @@
+package org.scm4j.deployer.engine.transport;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+class RangeHttpServer {
+
+	private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+	private final File root;
+	private final HttpServer server;
+	private final AtomicInteger rangeRequests = new AtomicInteger();
+	private final AtomicInteger getRequests = new AtomicInteger();
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicLong lastRangeStart = new AtomicLong(-1);
+	private final List<String> requestLog = Collections.synchronizedList(new ArrayList<>());
+	private volatile String authorization;
+
+	RangeHttpServer(File root) throws IOException {
+		this.root = root;
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/", this::handle);
+		server.start();
+	}
+
+	String getUrl() {
+		return "http://localhost:" + server.getAddress().getPort() + "/";
+	}
+
+	int getRangeRequests() {
+		return rangeRequests.get();
+	}
+
+	int getRequests() {
+		return requests.get();
+	}
+
+	int getGetRequests() {
+		return getRequests.get();
+	}
+
+	void setCredentials(String userName, String password) {
+		authorization = "Basic " + Base64.getEncoder().encodeToString((userName + ":" + password)
+				.getBytes(StandardCharsets.UTF_8));
+	}
+
+	List<String> getRequestLog() {
+		synchronized (requestLog) {
+			return new ArrayList<>(requestLog);
+		}
+	}
+
+	long getLastRangeStart() {
+		return lastRangeStart.get();
+	}
+
+	static String getEtag(File file) {
+		return "\"" + file.lastModified() + "-" + file.length() + "\"";
+	}
+
+	static String getLastModified(File file) {
+		return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(file.lastModified())
+				.atZone(ZoneOffset.UTC));
+	}
+
+	void stop() {
+		server.stop(0);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		requestLog.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+		if (authorization != null && !authorization.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+			exchange.getResponseHeaders().add("WWW-Authenticate", "Basic realm=\"test\"");
+			exchange.sendResponseHeaders(401, -1);
+			exchange.close();
+			return;
+		}
+		File file = new File(root, exchange.getRequestURI().getPath());
+		if (!file.isFile()) {
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+			return;
+		}
+		byte[] content = FileUtils.readFileToByteArray(file);
+		exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+		String etag = getEtag(file);
+		exchange.getResponseHeaders().add("ETag", etag);
+		exchange.getResponseHeaders().add("Last-Modified", getLastModified(file));
+		if (exchange.getRequestMethod().equals("HEAD")) {
+			exchange.getResponseHeaders().add("Content-Length", String.valueOf(content.length));
+			exchange.sendResponseHeaders(200, -1);
+			exchange.close();
+			return;
+		}
+		getRequests.incrementAndGet();
+		String unmodifiedSince = exchange.getRequestHeaders().getFirst("If-Unmodified-Since");
+		if (unmodifiedSince != null && file.lastModified() / 1000 > ZonedDateTime.parse(unmodifiedSince,
+				DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond()) {
+			exchange.sendResponseHeaders(412, -1);
+			exchange.close();
+			return;
+		}
+		String range = exchange.getRequestHeaders().getFirst("Range");
+		String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+		if (ifRange != null && !ifRange.equals(etag))
+			range = null;
+		int start = 0;
+		int end = content.length - 1;
+		int status = 200;
+		if (range != null) {
+			Matcher m = RANGE.matcher(range);
+			if (m.matches()) {
+				rangeRequests.incrementAndGet();
+				start = Integer.parseInt(m.group(1));
+				lastRangeStart.set(start);
+				if (!m.group(2).isEmpty())
+					end = Math.min(end, Integer.parseInt(m.group(2)));
+				status = 206;
+				exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+			}
+		}
+		exchange.sendResponseHeaders(status, end - start + 1);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(content, start, end - start + 1);
+		}
+	}
+}
@@ -0,0 +1,263 @@
+package org.scm4j.deployer.engine.transport;
+
+import com.google.common.hash.Hashing;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.Authentication;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.util.repository.AuthenticationBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scm4j.deployer.engine.DeployerEngineTest;
+import org.scm4j.deployer.engine.NegativeCache;
+import org.scm4j.deployer.engine.Utils;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SegmentedTransporterTest {
+
+	private static final String GROUP_ID = "eu.untill";
+	private static final String ARTIFACT_ID = "bigInstaller";
+	private static final String VERSION = "1.0";
+	private final File testFolder = new File(DeployerEngineTest.TEST_DIR, "segmented");
+	private final File remoteFolder = new File(testFolder, "remote");
+	private final File localFolder = new File(testFolder, "local");
+	private byte[] content;
+	private RangeHttpServer server;
+
+	@Before
+	public void before() throws Exception {
+		content = new byte[1024 * 1024 + 17];
+		new Random(1).nextBytes(content);
+		FileUtils.writeByteArrayToFile(new File(remoteFolder, Utils.coordsToRelativeFilePath(GROUP_ID, ARTIFACT_ID,
+				VERSION, "zip", null)), content);
+		server = new RangeHttpServer(remoteFolder);
+	}
+
+	@After
+	public void after() throws Exception {
+		server.stop();
+		FileUtils.deleteDirectory(testFolder);
+	}
+
+	private File getLocalFile() {
+		return new File(localFolder, Utils.coordsToRelativeFilePath(GROUP_ID, ARTIFACT_ID, VERSION, "zip", null));
+	}
+
+	private File writePartialFile(int written) throws Exception {
+		File partFile = new File(getLocalFile().getPath() + ".part");
+		byte[] partial = new byte[written];
+		System.arraycopy(content, 0, partial, 0, written);
+		FileUtils.writeByteArrayToFile(partFile, partial);
+		return partFile;
+	}
+
+	private void writePartialDownload(int written, String etag) throws Exception {
+		File partFile = writePartialFile(written);
+		try (RandomAccessFile raf = new RandomAccessFile(partFile, "rw")) {
+			raf.setLength(content.length);
+		}
+		String uri = server.getUrl() + Utils.coordsToRelativeFilePath(GROUP_ID, ARTIFACT_ID, VERSION, "zip", null);
+		File remoteFile = new File(remoteFolder, Utils.coordsToRelativeFilePath(GROUP_ID, ARTIFACT_ID, VERSION, "zip",
+				null));
+		DownloadState state = DownloadState.create(uri, new RemoteFile(content.length, true, etag,
+				RangeHttpServer.getLastModified(remoteFile)), 1);
+		state.getSegments().get(0).setWritten(written);
+		state.write(DownloadState.getStateFile(partFile));
+	}
+
+	private File resolve(int segments, long threshold) throws Exception {
+		return resolve(segments, threshold, null);
+	}
+
+	private File resolve(int segments, long threshold, NegativeCache negativeCache) throws Exception {
+		return resolve(segments, threshold, negativeCache, null);
+	}
+
+	private File resolve(int segments, long threshold, NegativeCache negativeCache, Authentication auth)
+			throws Exception {
+		RepositorySystem system = Utils.newRepositorySystem();
+		DefaultRepositorySystemSession session = Utils.newRepositorySystemSession(system, localFolder);
+		session.setConfigProperty(SegmentedTransporterFactory.CONFIG_PROP_NEGATIVE_CACHE, negativeCache);
+		session.setConfigProperty(SegmentedTransporterFactory.CONFIG_PROP_SEGMENTS, segments);
+		session.setConfigProperty(SegmentedTransporterFactory.CONFIG_PROP_SEGMENT_THRESHOLD, threshold);
+		ArtifactRequest request = new ArtifactRequest();
+		request.setArtifact(new DefaultArtifact(GROUP_ID, ARTIFACT_ID, "zip", VERSION));
+		request.setRepositories(Collections.singletonList(
+				new RemoteRepository.Builder("remote", "default", server.getUrl())
+						.setPolicy(new RepositoryPolicy(true, RepositoryPolicy.UPDATE_POLICY_DAILY,
+								RepositoryPolicy.CHECKSUM_POLICY_IGNORE))
+						.setAuthentication(auth)
+						.build()));
+		ArtifactResult result = system.resolveArtifact(session, request);
+		return result.getArtifact().getFile();
+	}
+
+	@Test
+	public void testSegmentedDownload() throws Exception {
+		File file = resolve(4, 1024);
+		assertArrayEquals(content, FileUtils.readFileToByteArray(file));
+		assertEquals(4, server.getRangeRequests());
+	}
+
+	@Test
+	public void testSegmentedDownloadWithAuthentication() throws Exception {
+		server.setCredentials("user", "secret");
+		File file = resolve(4, 1024, null, new AuthenticationBuilder().addUsername("user").addPassword("secret")
+				.build());
+		assertArrayEquals(content, FileUtils.readFileToByteArray(file));
+		assertEquals(4, server.getRangeRequests());
+	}
+
+	@Test
+	public void testUnsegmentedDownloadIsSingleRequest() throws Exception {
+		File file = resolve(1, 1024);
+		assertArrayEquals(content, FileUtils.readFileToByteArray(file));
+		assertEquals(0, server.getRangeRequests());
+		List<String> requests = server.getRequestLog();
+		assertEquals(1, requests.stream().filter(request -> request.endsWith(".zip")).count());
+		assertFalse(requests.stream().anyMatch(request -> request.startsWith("HEAD ")));
+	}
+
+	@Test
+	public void testSmallFileDownloadedInOneStream() throws Exception {
+		File file = resolve(4, content.length + 1);
+		assertArrayEquals(content, FileUtils.readFileToByteArray(file));
+		assertEquals(0, server.getRangeRequests());
+		assertEquals(1, server.getRequestLog().stream().filter(request -> request.equals("GET "
+				+ "/" + Utils.coordsToRelativeFilePath(GROUP_ID, ARTIFACT_ID, VERSION, "zip", null))).count());
+	}
+
+	@Test
+	public void testResumePartialDownload() throws Exception {
+		File remoteFile = new File(remoteFolder, Utils.coordsToRelativeFilePath(GROUP_ID, ARTIFACT_ID, VERSION, "zip",
+				null));
+		writePartialDownload(600 * 1024, RangeHttpServer.getEtag(remoteFile));
+		File file = resolve(4, 1024);
+		assertArrayEquals(content, FileUtils.readFileToByteArray(file));
+		assertEquals(1, server.getRangeRequests());
+		assertEquals(600 * 1024, server.getLastRangeStart());
+		assertFalse(DownloadState.getStateFile(new File(file.getPath() + ".part")).exists());
+	}
+
+	@Test
+	public void testChangedRemoteFileDiscardsPartialDownload() throws Exception {
+		writePartialDownload(600 * 1024, "\"changed\"");
+		File file = resolve(4, 1024);
+		assertArrayEquals(content, FileUtils.readFileToByteArray(file));
+		assertEquals(4, server.getRangeRequests());
+	}
+
+	@Test
+	public void testResumeUnsegmentedPartialDownload() throws Exception {
+		File remoteFile = new File(remoteFolder, Utils.coordsToRelativeFilePath(GROUP_ID, ARTIFACT_ID, VERSION, "zip",
+				null));
+		assertTrue(remoteFile.setLastModified(System.currentTimeMillis() - 3600 * 1000));
+		writePartialFile(600 * 1024);
+		File file = resolve(1, 1024);
+		assertArrayEquals(content, FileUtils.readFileToByteArray(file));
+		assertEquals(1, server.getRangeRequests());
+		assertEquals(600 * 1024, server.getLastRangeStart());
+	}
+
+	@Test
+	public void testChangedRemoteFileRestartsUnsegmentedDownload() throws Exception {
+		writePartialFile(600 * 1024);
+		File remoteFile = new File(remoteFolder, Utils.coordsToRelativeFilePath(GROUP_ID, ARTIFACT_ID, VERSION, "zip",
+				null));
+		assertTrue(remoteFile.setLastModified(System.currentTimeMillis() + 3600 * 1000));
+		File file = resolve(1, 1024);
+		assertArrayEquals(content, FileUtils.readFileToByteArray(file));
+		assertEquals(0, server.getRangeRequests());
+	}
+
+	@Test
+	public void testChecksumsVerifiedWhileDownloading() throws Exception {
+		writeRemoteChecksum("sha1", Hashing.sha1().hashBytes(content).toString() + "  " + ARTIFACT_ID + ".zip");
+		writeRemoteChecksum("sha256", Hashing.sha256().hashBytes(content).toString());
+		File file = resolve(4, 1024);
+		assertArrayEquals(content, FileUtils.readFileToByteArray(file));
+		List<String> requests = server.getRequestLog();
+		assertTrue(requests.stream().anyMatch(request -> request.endsWith(".zip.sha1")));
+		assertTrue(requests.stream().anyMatch(request -> request.endsWith(".zip.sha256")));
+	}
+
+	@Test
+	public void testChecksumMismatchFailsDownload() throws Exception {
+		writeRemoteChecksum("sha1", Hashing.sha1().hashBytes(content).toString());
+		writeRemoteChecksum("sha256", Hashing.sha256().hashString("corrupted", StandardCharsets.UTF_8).toString());
+		assertDownloadFails(4);
+	}
+
+	@Test
+	public void testSha1MismatchFailsDownload() throws Exception {
+		writeRemoteChecksum("sha1", Hashing.sha1().hashString("corrupted", StandardCharsets.UTF_8).toString());
+		assertDownloadFails(4);
+	}
+
+	@Test
+	public void testSmallFileChecksumVerified() throws Exception {
+		writeRemoteChecksum("sha1", Hashing.sha1().hashBytes(content).toString());
+		File file = resolve(1, 1024);
+		assertArrayEquals(content, FileUtils.readFileToByteArray(file));
+		assertFalse(server.getRequestLog().stream().anyMatch(request -> request.endsWith(".sha256")));
+		writeRemoteChecksum("sha1", Hashing.sha1().hashString("corrupted", StandardCharsets.UTF_8).toString());
+		FileUtils.deleteDirectory(localFolder);
+		assertDownloadFails(1);
+	}
+
+	private void writeRemoteChecksum(String extension, String checksum) throws Exception {
+		File remoteFile = new File(remoteFolder, Utils.coordsToRelativeFilePath(GROUP_ID, ARTIFACT_ID, VERSION, "zip",
+				null));
+		FileUtils.writeStringToFile(new File(remoteFile.getPath() + "." + extension), checksum, "UTF-8");
+	}
+
+	private void assertDownloadFails(int segments) throws Exception {
+		try {
+			resolve(segments, 1024);
+			fail();
+		} catch (ArtifactResolutionException e) {
+			assertFalse(getLocalFile().exists());
+			File partFile = new File(getLocalFile().getPath() + ".part");
+			assertTrue(!partFile.exists() || partFile.length() == 0);
+		}
+	}
+
+	@Test
+	public void testMissingArtifactCached() throws Exception {
+		FileUtils.deleteDirectory(remoteFolder);
+		NegativeCache negativeCache = new NegativeCache(testFolder);
+		try {
+			resolve(1, 1024, negativeCache);
+			fail();
+		} catch (ArtifactResolutionException e) {
+			assertTrue(negativeCache.isMissing(server.getUrl() + Utils.coordsToRelativeFilePath(GROUP_ID,
+					ARTIFACT_ID, VERSION, "zip", null)));
+		}
+		int requests = server.getRequests();
+		try {
+			resolve(1, 1024, negativeCache);
+			fail();
+		} catch (ArtifactResolutionException e) {
+			assertEquals(requests, server.getRequests());
+		}
+	}
+}